@@ -0,0 +1,169 @@
+package miniJava;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// writes the generated miniJava programs the benchmarks run on, the same program for the same arguments
+// usage: BenchGenerator kind size out.java
+//   keywords n      n classes whose methods are mostly keywords, for the scanner
+//   expressions n   n classes of methods of long expressions at every precedence level, for the parser
+//   nested n        a method of n nested blocks that each declare 20 locals, for identification
+//   methods n       n classes of 100 methods each, for type checking
+//   loops n         nested loops with n iterations in the outer one, for the code generator
+public class BenchGenerator {
+
+    private PrintWriter out;
+
+    BenchGenerator(PrintWriter out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("usage: BenchGenerator keywords|expressions|nested|methods|loops size out.java");
+            System.exit(2);
+        }
+        int size = Integer.parseInt(args[1]);
+        try (PrintWriter out = new PrintWriter(new FileWriter(args[2]))) {
+            BenchGenerator generator = new BenchGenerator(out);
+            if (args[0].equals("keywords")) {
+                generator.keywords(size);
+            } else if (args[0].equals("expressions")) {
+                generator.expressions(size);
+            } else if (args[0].equals("nested")) {
+                generator.nested(size);
+            } else if (args[0].equals("methods")) {
+                generator.methods(size);
+            } else if (args[0].equals("loops")) {
+                generator.loops(size);
+            } else {
+                System.out.println("unknown kind " + args[0]);
+                System.exit(2);
+            }
+        }
+    }
+
+    private void main(String body) {
+        out.println("class Main {");
+        out.println("    public static void main(String[] args) {");
+        out.println(body);
+        out.println("    }");
+        out.println("}");
+    }
+
+    // every keyword of miniJava, several times per line, with a few short identifiers in between
+    private void keywords(int classes) {
+        main("        System.out.println(0);");
+        for (int c = 0; c < classes; c++) {
+            out.println("class K" + c + " {");
+            out.println("    private int count;");
+            out.println("    public boolean flag;");
+            for (int m = 0; m < 10; m++) {
+                out.println("    public static int s" + m + "(int a, boolean b) {");
+                out.println("        if (b && true || false) { return a; } else { while (false) { return 0; } }");
+                out.println("        boolean c = b != true;");
+                out.println("        return a;");
+                out.println("    }");
+                out.println("    private boolean p" + m + "(K" + c + " o) {");
+                out.println("        if (o == null) return false; else if (this == o) return true;");
+                out.println("        return this.flag;");
+                out.println("    }");
+                out.println("    public void v" + m + "() {");
+                out.println("        int[] x = new int[2]; K" + c + " y = new K" + c + "(); this.count = 0;");
+                out.println("        if (y.flag) return; while (this.flag) this.flag = false;");
+                out.println("    }");
+            }
+            out.println("}");
+        }
+    }
+
+    // arithmetic, comparisons and boolean operators mixed at every level, with parentheses and unary
+    // operators in between, so most of the source is expressions
+    private void expressions(int classes) {
+        main("        System.out.println(E0.e0(1, 2, true));");
+        for (int c = 0; c < classes; c++) {
+            out.println("class E" + c + " {");
+            for (int m = 0; m < 20; m++) {
+                out.println("    public static int e" + m + "(int a, int b, boolean c) {");
+                out.println("        int x = a + b * 3 - (a - b) / 2 + a * b * 2 - 1 + " + m + ";");
+                out.println("        boolean y = a < b && b >= 2 || !c && a == b + 1 || a != 3 && c;");
+                out.println("        x = x * (a + 1) + -b - (x - a) * (b + 2) / 3 + a + b + 1;");
+                out.println("        y = !(x > a * 2) || y && (a <= b || x - 1 == a + b * 2) && c != false;");
+                out.println("        return x + a * 2 - (b - -x) / (a * a + 1);");
+                out.println("    }");
+            }
+            out.println("}");
+        }
+    }
+
+    // each block declares its locals and then opens the next one, so locals pile up level on level
+    private void nested(int depth) {
+        out.println("class Main {");
+        out.println("    public static void main(String[] args) {");
+        for (int d = 0; d < depth; d++) {
+            for (int l = 0; l < 20; l++) {
+                out.println("        int v" + d + "_" + l + " = " + (d > 0 ? "v" + (d - 1) + "_" + l + " + 1" : "" + l) + ";");
+            }
+            out.println("        {");
+        }
+        out.println("        System.out.println(v" + (depth - 1) + "_0);");
+        for (int d = 0; d < depth; d++) {
+            out.println("        }");
+        }
+        out.println("    }");
+        out.println("}");
+    }
+
+    // methods with a mix of arithmetic, comparisons, array and field accesses and calls
+    private void methods(int classes) {
+        main("        T0 t = new T0();\n        System.out.println(t.m0(1, true));");
+        for (int c = 0; c < classes; c++) {
+            out.println("class T" + c + " {");
+            out.println("    int f;");
+            out.println("    int[] a;");
+            out.println("    T" + c + " next;");
+            for (int m = 0; m < 100; m++) {
+                out.println("    public int m" + m + "(int x, boolean b) {");
+                out.println("        int y = x * 2 + f - 3;");
+                out.println("        boolean z = b && y < x || !b && y >= 0;");
+                out.println("        if (z) { y = y + 1; } else { y = -y; }");
+                out.println("        int i = 0;");
+                out.println("        a = new int[4];");
+                out.println("        while (i < a.length) { a[i] = i * y; i = i + 1; }");
+                out.println("        if (next != null) y = y + next.f;");
+                out.println("        " + (m + 1 < 100 ? "if (x > " + (m + 1) + ") y = y + m" + (m + 1) + "(x - 1, !b);" : "y = y + 0;"));
+                out.println("        return y + a[x - x];");
+                out.println("    }");
+            }
+            out.println("}");
+        }
+    }
+
+    // loops with if and else branches, unary minus and array updates, run for a while
+    private void loops(int n) {
+        main("        Loops loops = new Loops();\n        System.out.println(loops.run(" + n + "));");
+        out.println("class Loops {");
+        out.println("    int[] a;");
+        out.println("    public int run(int n) {");
+        out.println("        a = new int[10];");
+        out.println("        int sum = 0;");
+        out.println("        int i = 0;");
+        out.println("        while (i < n) {");
+        out.println("            int j = 0;");
+        out.println("            while (j < 10) {");
+        out.println("                if (j == 3 || i == j) { sum = sum - -j; } else { }");
+        out.println("                if (i > j && !(j == 5)) a[j] = a[j] + i * 1 + 0; else a[j] = -a[j];");
+        out.println("                j = j + 1;");
+        out.println("            }");
+        out.println("            {");
+        out.println("                int k = sum / 1;");
+        out.println("                sum = k - 0;");
+        out.println("            }");
+        out.println("            i = i + 1;");
+        out.println("        }");
+        out.println("        return sum + a[9];");
+        out.println("    }");
+        out.println("}");
+    }
+}
@@ -0,0 +1,183 @@
+package miniJava.CodeGenerator;
+
+import java.util.ArrayList;
+
+import mJAM.Instruction;
+import mJAM.Machine;
+import mJAM.Machine.Op;
+import mJAM.Machine.Prim;
+import mJAM.Machine.Reg;
+
+// runs the code store left by the CodeGenerator and counts the instructions it executes, which the
+// mJAM Interpreter does not report
+// covers the instructions and primitives the CodeGenerator emits, with the frame and heap layout of
+// mJAM: three link words per frame (OB, LB, return address), two header words per heap block
+public class CountingInterpreter {
+
+    private static final Op[] OPS = Op.values();
+    private static final Prim[] PRIMS = Prim.values();
+    private static final int LB = Reg.LB.ordinal();
+    private static final int OB = Reg.OB.ordinal();
+    private static final int PB = Reg.PB.ordinal();
+
+    // values the program printed, in order
+    public ArrayList<Integer> output = new ArrayList<Integer>();
+    public long executed = 0;
+    // set when the program stopped on an error instead of a HALT
+    public String error = null;
+
+    private int[] mem = new int[1 << 20];
+
+    public void run() {
+        Instruction[] code = Machine.code;
+        int st = 0;
+        int lb = 0;
+        int ob = 0;
+        int cp = 0;
+        int ht = mem.length;
+        try {
+            while (true) {
+                Instruction in = code[cp++];
+                executed++;
+                int base = in.r == LB ? lb : in.r == OB ? ob : 0;
+                switch (OPS[in.op]) {
+                    case LOAD:
+                        mem[st++] = mem[base + in.d];
+                        break;
+                    case LOADA:
+                        mem[st++] = base + in.d;
+                        break;
+                    case LOADI:
+                        mem[st - 1] = mem[mem[st - 1]];
+                        break;
+                    case LOADL:
+                        mem[st++] = in.d;
+                        break;
+                    case STORE:
+                        mem[base + in.d] = mem[--st];
+                        break;
+                    case STOREI: {
+                        int address = mem[--st];
+                        mem[address] = mem[--st];
+                        break;
+                    }
+                    case PUSH:
+                        st += in.d;
+                        break;
+                    case POP:
+                        System.arraycopy(mem, st - in.n, mem, st - in.n - in.d, in.n);
+                        st -= in.d;
+                        break;
+                    case JUMP:
+                        cp = in.d;
+                        break;
+                    case JUMPIF:
+                        if (mem[--st] == in.n) {
+                            cp = in.d;
+                        }
+                        break;
+                    case HALT:
+                        return;
+                    case CALLI: {
+                        int instance = mem[--st];
+                        mem[st] = ob;
+                        mem[st + 1] = lb;
+                        mem[st + 2] = cp;
+                        lb = st;
+                        st += 3;
+                        ob = instance;
+                        cp = in.d;
+                        break;
+                    }
+                    case CALL:
+                        if (in.r != PB) {
+                            mem[st] = ob;
+                            mem[st + 1] = lb;
+                            mem[st + 2] = cp;
+                            lb = st;
+                            st += 3;
+                            cp = in.d;
+                            break;
+                        }
+                        switch (PRIMS[in.d]) {
+                            case add: st--; mem[st - 1] += mem[st]; break;
+                            case sub: st--; mem[st - 1] -= mem[st]; break;
+                            case mult: st--; mem[st - 1] *= mem[st]; break;
+                            case div: st--; mem[st - 1] /= mem[st]; break;
+                            case lt: st--; mem[st - 1] = mem[st - 1] < mem[st] ? 1 : 0; break;
+                            case le: st--; mem[st - 1] = mem[st - 1] <= mem[st] ? 1 : 0; break;
+                            case gt: st--; mem[st - 1] = mem[st - 1] > mem[st] ? 1 : 0; break;
+                            case ge: st--; mem[st - 1] = mem[st - 1] >= mem[st] ? 1 : 0; break;
+                            case eq: st--; mem[st - 1] = mem[st - 1] == mem[st] ? 1 : 0; break;
+                            case ne: st--; mem[st - 1] = mem[st - 1] != mem[st] ? 1 : 0; break;
+                            case and: st--; mem[st - 1] = mem[st - 1] != 0 && mem[st] != 0 ? 1 : 0; break;
+                            case or: st--; mem[st - 1] = mem[st - 1] != 0 || mem[st] != 0 ? 1 : 0; break;
+                            case neg: mem[st - 1] = -mem[st - 1]; break;
+                            case not: mem[st - 1] = mem[st - 1] == 0 ? 1 : 0; break;
+                            case putintnl: output.add(mem[--st]); break;
+                            case newarr: {
+                                int length = mem[st - 1];
+                                ht -= length + 2;
+                                mem[ht] = -2;
+                                mem[ht + 1] = length;
+                                for (int i = 0; i < length; i++) {
+                                    mem[ht + 2 + i] = 0;
+                                }
+                                mem[st - 1] = ht + 2;
+                                break;
+                            }
+                            case newobj: {
+                                int fields = mem[--st];
+                                int classObject = mem[--st];
+                                ht -= fields + 2;
+                                mem[ht] = classObject;
+                                mem[ht + 1] = fields;
+                                for (int i = 0; i < fields; i++) {
+                                    mem[ht + 2 + i] = 0;
+                                }
+                                mem[st++] = ht + 2;
+                                break;
+                            }
+                            case arraylen: mem[st - 1] = mem[mem[st - 1] - 1]; break;
+                            case arrayref:
+                            case fieldref: {
+                                int index = mem[--st];
+                                mem[st - 1] = mem[checkNull(mem[st - 1]) + index];
+                                break;
+                            }
+                            case arrayupd:
+                            case fieldupd: {
+                                int value = mem[--st];
+                                int index = mem[--st];
+                                mem[checkNull(mem[--st]) + index] = value;
+                                break;
+                            }
+                            default:
+                                throw new IllegalStateException("primitive " + PRIMS[in.d] + " at " + (cp - 1));
+                        }
+                        break;
+                    case RETURN: {
+                        int frame = lb;
+                        ob = mem[frame];
+                        lb = mem[frame + 1];
+                        cp = mem[frame + 2];
+                        System.arraycopy(mem, st - in.n, mem, frame - in.d, in.n);
+                        st = frame - in.d + in.n;
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("instruction " + OPS[in.op] + " at " + (cp - 1));
+                }
+            }
+        } catch (RuntimeException e) {
+            error = e.toString();
+        }
+    }
+
+    private static int checkNull(int address) {
+        if (address == Machine.nullRep) {
+            throw new IllegalStateException("null reference");
+        }
+        return address;
+    }
+}
@@ -0,0 +1,72 @@
+package miniJava.CodeGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import mJAM.Machine;
+import miniJava.DeferredErrorReporter;
+import miniJava.AbstractSyntaxTrees.AST;
+import miniJava.ContextualAnalyzer.Identification;
+import miniJava.ContextualAnalyzer.TypeChecking;
+import miniJava.SyntacticAnalyzer.CharSource;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.Scanner;
+
+// compiles each program with and without -peephole, runs both and reports the size of the code store
+// and the number of instructions executed, checking that both print the same
+// usage: PeepholeBench file.java...
+public class PeepholeBench {
+
+    public static void main(String[] args) throws IOException {
+        Path work = Files.createTempDirectory("peephole");
+        long executedBefore = 0;
+        long executedAfter = 0;
+        System.out.printf("%-20s %8s %8s %12s %12s %7s%n", "program", "code", "-peephole", "executed", "-peephole", "saved");
+        for (String arg : args) {
+            Path copy = work.resolve(new File(arg).getName());
+            Files.copy(new File(arg).toPath(), copy, StandardCopyOption.REPLACE_EXISTING);
+
+            int size = compile(copy.toString(), false);
+            CountingInterpreter before = new CountingInterpreter();
+            before.run();
+            int optimizedSize = compile(copy.toString(), true);
+            CountingInterpreter after = new CountingInterpreter();
+            after.run();
+
+            String name = copy.getFileName().toString();
+            if (before.error != null || after.error != null || !before.output.equals(after.output)) {
+                System.out.println(name + ": output differs or the program failed: " + before.error + ", " + after.error);
+                System.exit(1);
+            }
+            executedBefore += before.executed;
+            executedAfter += after.executed;
+            System.out.printf("%-20s %8d %8d %12d %12d %6.1f%%%n", name, size, optimizedSize,
+                    before.executed, after.executed, 100.0 * (before.executed - after.executed) / before.executed);
+        }
+        System.out.printf("%-20s %8s %8s %12d %12d %6.1f%%%n", "total", "", "",
+                executedBefore, executedAfter, 100.0 * (executedBefore - executedAfter) / executedBefore);
+    }
+
+    // compile the program into the code store and return its size
+    private static int compile(String fileName, boolean peephole) throws IOException {
+        DeferredErrorReporter reporter = new DeferredErrorReporter();
+        AST ast = new Parser(new Scanner(CharSource.open(fileName), reporter), reporter).parse();
+        if (!reporter.hasErrors()) {
+            new Identification(ast, reporter).identify();
+        }
+        if (!reporter.hasErrors()) {
+            new TypeChecking(ast, reporter).typeCheck();
+        }
+        if (reporter.hasErrors()) {
+            throw new IllegalArgumentException(fileName + " is not a valid program: " + reporter.get(0));
+        }
+        CodeGenerator codeGenerator = new CodeGenerator(ast, reporter);
+        codeGenerator.debug = false;
+        codeGenerator.setPeephole(peephole);
+        codeGenerator.generate(fileName);
+        return Machine.nextInstrAddr();
+    }
+}
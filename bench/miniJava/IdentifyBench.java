@@ -0,0 +1,50 @@
+package miniJava;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import miniJava.AbstractSyntaxTrees.AST;
+import miniJava.ContextualAnalyzer.Identification;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.Scanner;
+
+// times identification of a file, parsed again for every round since identification decorates the tree
+// usage: IdentifyBench file.java [rounds]
+// it only uses the API of the original compiler, so it builds against any revision
+public class IdentifyBench {
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args[0];
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        // as many rounds again first, to warm up
+        for (int round = 0; round < rounds; round++) {
+            identify(fileName);
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int round = 0; round < rounds; round++) {
+            long time = identify(fileName);
+            best = Math.min(best, time);
+            total += time;
+        }
+        System.out.printf("identification: %.2f ms best, %.2f ms mean%n", best / 1e6, total / 1e6 / rounds);
+    }
+
+    private static long identify(String fileName) throws IOException {
+        ErrorReporter reporter = new ErrorReporter();
+        AST ast;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+            ast = new Parser(new Scanner(in, reporter), reporter).parse();
+        }
+        long start = System.nanoTime();
+        new Identification(ast, reporter).identify();
+        long time = System.nanoTime() - start;
+        if (reporter.hasErrors()) {
+            System.exit(1);
+        }
+        return time;
+    }
+}
@@ -0,0 +1,52 @@
+package miniJava;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+
+import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.Token;
+
+// scans a file to the end and reports the bytes allocated and the time taken per token
+// usage: ScanBench file.java [rounds]
+// it only uses the Scanner of the original compiler, read from a stream, so it builds against any
+// revision and the numbers before and after a change can be compared
+public class ScanBench {
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args[0];
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // as many rounds again first, to warm up
+        for (int round = 0; round < rounds; round++) {
+            scan(fileName);
+        }
+        long tokens = 0;
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            tokens += scan(fileName);
+        }
+        long time = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+        System.out.printf("%d tokens per round, %.1f bytes and %.1f ns per token%n",
+                tokens / rounds, (double) bytes / tokens, (double) time / tokens);
+    }
+
+    private static long scan(String fileName) throws IOException {
+        ErrorReporter reporter = new ErrorReporter();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+            Scanner scanner = new Scanner(in, reporter);
+            long count = 1;
+            while (scanner.scan().kind != Token.TokenKind.EOT) {
+                count++;
+            }
+            return count;
+        }
+    }
+}
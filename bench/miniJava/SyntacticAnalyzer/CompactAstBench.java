@@ -0,0 +1,69 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+
+import miniJava.DeferredErrorReporter;
+import miniJava.AbstractSyntaxTrees.AST;
+
+// measures the heap a parsed tree holds on to and the time parsing takes, with a SourcePosition per
+// token as the Parser builds by default and with -compactast, where every node on a line shares one
+// usage: CompactAstBench file.java [rounds]
+public class CompactAstBench {
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args[0];
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        // as many rounds again first, to warm up
+        for (int round = 0; round < rounds; round++) {
+            parse(fileName, false);
+            parse(fileName, true);
+        }
+        long normal = Long.MAX_VALUE;
+        long compact = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            normal = Math.min(normal, time(fileName, false));
+            compact = Math.min(compact, time(fileName, true));
+        }
+        long normalHeap = retained(fileName, false);
+        long compactHeap = retained(fileName, true);
+        System.out.printf("default %.1f MB, %.1f ms; -compactast %.1f MB, %.1f ms%n",
+                normalHeap / 1e6, normal / 1e6, compactHeap / 1e6, compact / 1e6);
+    }
+
+    private static long time(String fileName, boolean compactAst) throws IOException {
+        long start = System.nanoTime();
+        parse(fileName, compactAst);
+        return System.nanoTime() - start;
+    }
+
+    // heap in use with the tree alive less the heap in use before parsing, after collecting garbage
+    private static long retained(String fileName, boolean compactAst) throws IOException {
+        long before = used();
+        AST ast = parse(fileName, compactAst);
+        long after = used();
+        if (ast == null) {
+            System.exit(1);
+        }
+        return after - before;
+    }
+
+    private static long used() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static AST parse(String fileName, boolean compactAst) throws IOException {
+        DeferredErrorReporter reporter = new DeferredErrorReporter();
+        Parser parser = new Parser(new Scanner(CharSource.open(fileName), reporter, false), reporter);
+        parser.setCompactAst(compactAst);
+        AST ast = parser.parse();
+        if (ast == null || reporter.hasErrors()) {
+            System.exit(1);
+        }
+        return ast;
+    }
+}
@@ -0,0 +1,46 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+
+import miniJava.DeferredErrorReporter;
+import miniJava.AbstractSyntaxTrees.AST;
+
+// times parsing a file with the recursive expression parser, one method per precedence level, and
+// with precedence climbing over an operator stack, the tokens are scanned up front so only the
+// parser is timed
+// usage: ParseBench file.java [rounds]
+public class ParseBench {
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args[0];
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        TokenStream tokens = TokenStream.lex(ByteBufferCharSource.load(fileName), false);
+
+        // as many rounds again first, to warm up
+        for (int round = 0; round < rounds; round++) {
+            parse(tokens, true);
+            parse(tokens, false);
+        }
+        long recursive = Long.MAX_VALUE;
+        long climbing = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            recursive = Math.min(recursive, parse(tokens, true));
+            climbing = Math.min(climbing, parse(tokens, false));
+        }
+        System.out.printf("%.2f ms recursive, %.2f ms precedence climbing, %.2fx%n",
+                recursive / 1e6, climbing / 1e6, (double) recursive / climbing);
+    }
+
+    private static long parse(TokenStream tokens, boolean recursiveExpressions) {
+        DeferredErrorReporter reporter = new DeferredErrorReporter();
+        Parser parser = new Parser(tokens.cursor(reporter), reporter);
+        parser.setRecursiveExpressions(recursiveExpressions);
+        long start = System.nanoTime();
+        AST ast = parser.parse();
+        long time = System.nanoTime() - start;
+        if (ast == null || reporter.hasErrors()) {
+            System.exit(1);
+        }
+        return time;
+    }
+}
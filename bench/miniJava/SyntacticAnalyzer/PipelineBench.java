@@ -0,0 +1,56 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+
+import miniJava.DeferredErrorReporter;
+import miniJava.AbstractSyntaxTrees.AST;
+
+// times parsing a file with the Scanner called by the Parser and with -pipeline, where it scans on a
+// thread of its own, from opening the file to the finished tree
+// usage: PipelineBench file.java [rounds]
+public class PipelineBench {
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args[0];
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        // as many rounds again first, to warm up
+        for (int round = 0; round < rounds; round++) {
+            parse(fileName, false);
+            parse(fileName, true);
+        }
+        long sequential = Long.MAX_VALUE;
+        long pipelined = Long.MAX_VALUE;
+        long sequentialTotal = 0;
+        long pipelinedTotal = 0;
+        for (int round = 0; round < rounds; round++) {
+            long time = parse(fileName, false);
+            sequential = Math.min(sequential, time);
+            sequentialTotal += time;
+            time = parse(fileName, true);
+            pipelined = Math.min(pipelined, time);
+            pipelinedTotal += time;
+        }
+        System.out.printf("%d processors: %.1f ms sequential, %.1f ms -pipeline best, %.1f ms and %.1f ms mean, %.2fx%n",
+                Runtime.getRuntime().availableProcessors(), sequential / 1e6, pipelined / 1e6,
+                sequentialTotal / 1e6 / rounds, pipelinedTotal / 1e6 / rounds, (double) sequential / pipelined);
+    }
+
+    private static long parse(String fileName, boolean pipeline) throws IOException {
+        DeferredErrorReporter reporter = new DeferredErrorReporter();
+        long start = System.nanoTime();
+        AST ast;
+        if (pipeline) {
+            TokenPipeline tokens = TokenPipeline.start(CharSource.open(fileName), reporter, false);
+            ast = new Parser(tokens, reporter).parse();
+            tokens.cancel();
+        } else {
+            ast = new Parser(new Scanner(CharSource.open(fileName), reporter, false), reporter).parse();
+        }
+        long time = System.nanoTime() - start;
+        if (ast == null || reporter.hasErrors()) {
+            System.exit(1);
+        }
+        return time;
+    }
+}
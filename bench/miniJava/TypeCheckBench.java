@@ -0,0 +1,52 @@
+package miniJava;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import miniJava.AbstractSyntaxTrees.AST;
+import miniJava.ContextualAnalyzer.Identification;
+import miniJava.ContextualAnalyzer.TypeChecking;
+import miniJava.SyntacticAnalyzer.CharSource;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.Scanner;
+
+// times type checking of a file sequentially and with -paralleltc, on however many processors the
+// JVM was given, run with -XX:ActiveProcessorCount=n to vary it
+// usage: TypeCheckBench file.java [rounds]
+public class TypeCheckBench {
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args[0];
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        for (int round = 0; round < rounds; round++) {
+            typeCheck(fileName, false);
+            typeCheck(fileName, true);
+        }
+        long sequential = Long.MAX_VALUE;
+        long parallel = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            sequential = Math.min(sequential, typeCheck(fileName, false));
+            parallel = Math.min(parallel, typeCheck(fileName, true));
+        }
+        System.out.printf("%d processors, pool of %d: %.2f ms sequential, %.2f ms parallel, %.2fx%n",
+                Runtime.getRuntime().availableProcessors(), ForkJoinPool.getCommonPoolParallelism(),
+                sequential / 1e6, parallel / 1e6, (double) sequential / parallel);
+    }
+
+    // time of one type check, the tree is built again each time since type checking decorates it
+    private static long typeCheck(String fileName, boolean parallel) throws IOException {
+        ErrorReporter reporter = new ErrorReporter();
+        AST ast = new Parser(new Scanner(CharSource.open(fileName), reporter), reporter).parse();
+        new Identification(ast, reporter).identify();
+        TypeChecking typeChecker = new TypeChecking(ast, reporter);
+        typeChecker.setParallel(parallel);
+        long start = System.nanoTime();
+        typeChecker.typeCheck();
+        long time = System.nanoTime() - start;
+        if (reporter.hasErrors()) {
+            System.exit(1);
+        }
+        return time;
+    }
+}
@@ -0,0 +1,72 @@
+#!/bin/sh
+# run one of the benchmarks from the top of the repository
+# usage: bench/run.sh scan|pipeline|parse|compactast|identify|typecheck|peephole [revision]
+# builds the compiler as of the given git revision, the working tree by default, together with the
+# benchmark drivers, generates the benchmark's input into build/bench and runs it
+# MJAM names the mJAM classes (a directory or a jar) that the compiler is built against
+#   scan       bytes allocated and time per token scanning a keyword heavy program
+#   pipeline   parsing the same 10 MB program with the scanner on the parser's thread and with -pipeline
+#   parse      parsing expression heavy code with the recursive and the precedence climbing parser
+#   compactast heap held by the tree and parse time of a million line program with and without -compactast
+#   identify   identification of a method with 1500 nested blocks of 20 locals each
+#   typecheck  type checking 3000 methods, sequential and -paralleltc, on 1 to 32 processors
+#   peephole   code size and instructions executed with and without -peephole on test/ir, test/peephole and a loop
+# scan and identify build against any revision, the others need the options they measure
+set -e
+cd "$(dirname "$0")/.."
+: "${MJAM:?set MJAM to the mJAM classes directory or jar}"
+bench=$1
+revision=$2
+out=build/bench
+mkdir -p $out
+
+case $bench in
+    scan) drivers=bench/miniJava/ScanBench.java ;;
+    pipeline) drivers=bench/miniJava/SyntacticAnalyzer/PipelineBench.java ;;
+    parse) drivers=bench/miniJava/SyntacticAnalyzer/ParseBench.java ;;
+    compactast) drivers=bench/miniJava/SyntacticAnalyzer/CompactAstBench.java ;;
+    identify) drivers=bench/miniJava/IdentifyBench.java ;;
+    typecheck) drivers=bench/miniJava/TypeCheckBench.java ;;
+    peephole) drivers="bench/miniJava/CodeGenerator/PeepholeBench.java bench/miniJava/CodeGenerator/CountingInterpreter.java" ;;
+    *) echo "usage: bench/run.sh scan|pipeline|parse|compactast|identify|typecheck|peephole [revision]"; exit 2 ;;
+esac
+
+src=src
+if [ -n "$revision" ]; then
+    src=$out/src-$revision
+    rm -rf $src && mkdir -p $src
+    git archive "$revision" src | tar -x -C $src --strip-components=1
+fi
+classes=$out/classes-${revision:-work}
+rm -rf $classes && mkdir -p $classes
+javac -nowarn --release 14 -cp "$MJAM" -d $classes $(find $src -name '*.java') bench/miniJava/BenchGenerator.java $drivers
+
+run() {
+    java -cp "$classes:$MJAM" "$@"
+}
+
+case $bench in
+    scan)
+        run miniJava.BenchGenerator keywords 2000 $out/keywords.java
+        run miniJava.ScanBench $out/keywords.java ;;
+    pipeline)
+        run miniJava.BenchGenerator keywords 2000 $out/keywords.java
+        run miniJava.SyntacticAnalyzer.PipelineBench $out/keywords.java ;;
+    parse)
+        run miniJava.BenchGenerator expressions 100 $out/expressions.java
+        run -Xms1g -Xmx1g miniJava.SyntacticAnalyzer.ParseBench $out/expressions.java 50 ;;
+    compactast)
+        run miniJava.BenchGenerator keywords 7600 $out/keywords-1m.java
+        run -Xms3g -Xmx3g miniJava.SyntacticAnalyzer.CompactAstBench $out/keywords-1m.java 10 ;;
+    identify)
+        run miniJava.BenchGenerator nested 1500 $out/nested.java
+        run -Xss64m miniJava.IdentifyBench $out/nested.java ;;
+    typecheck)
+        run miniJava.BenchGenerator methods 30 $out/methods.java
+        for n in 1 2 4 8 16 32; do
+            run -XX:ActiveProcessorCount=$n miniJava.TypeCheckBench $out/methods.java
+        done ;;
+    peephole)
+        run miniJava.BenchGenerator loops 200 $out/loopbench.java
+        run miniJava.CodeGenerator.PeepholeBench test/ir/*.java test/peephole/*.java $out/loopbench.java ;;
+esac
@@ -11,7 +11,7 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 public class ArrayType extends TypeDenoter {
 
 	    public ArrayType(TypeDenoter eltType, SourcePosition posn){
-	        super(TypeKind.ARRAY, posn);
+	        super(TypeKind.ARRAY, TypeUniverse.arrayId(eltType.typeId), posn);
 	        this.eltType = eltType;
 	    }
 	        
@@ -5,18 +5,19 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
+import miniJava.NameTable;
 import miniJava.SyntacticAnalyzer.SourcePosition;
-import miniJava.SyntacticAnalyzer.Token;
 
 public class ClassDecl extends Declaration {
 
-  public ClassDecl(String cn, FieldDeclList fdl, MethodDeclList mdl, SourcePosition posn) {
-	  super(cn, new ClassType(new Identifier(new Token(Token.TokenKind.ID, cn, null)), null), posn);
-	  if (cn.equals("String")) {
-	      this.type = new BaseType(TypeKind.UNSUPPORTED, null);
+  public ClassDecl(String cn, int nameId, FieldDeclList fdl, MethodDeclList mdl, SourcePosition posn) {
+	  super(cn, nameId, TypeUniverse.classType(cn, nameId), posn);
+	  if (nameId == NameTable.STRING) {
+	      this.type = TypeUniverse.UNSUPPORTED;
       }
 	  fieldDeclList = fdl;
 	  methodDeclList = mdl;
+	  members = new MemberIndex(fdl, mdl);
   }
 
   public <A,R> R visit(Visitor<A, R> v, A o) {
@@ -25,4 +26,6 @@ public class ClassDecl extends Declaration {
       
   public FieldDeclList fieldDeclList;
   public MethodDeclList methodDeclList;
+  // members by name, for resolving qualified references
+  public final MemberIndex members;
 }
@@ -12,7 +12,7 @@ public class ClassType extends TypeDenoter
     public Identifier className;
 
     public ClassType(Identifier cn, SourcePosition posn){
-        super(TypeKind.CLASS, posn);
+        super(TypeKind.CLASS, TypeUniverse.classId(cn.nameId), posn);
         className = cn;
     }
             
@@ -11,6 +11,7 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 public abstract class Declaration extends AST {
 
 	public String name;
+	public int nameId;
 	public TypeDenoter type;
 	public boolean isArrayLength;
 	public boolean isStaticFieldRef;
@@ -24,9 +25,11 @@ public abstract class Declaration extends AST {
 	// offset relative to OB for instance variables
 	// offset relative to CB for methods
 	
-	public Declaration(String name, TypeDenoter type, SourcePosition posn) {
+	// nameId is the id of name in the NameTable of the compilation the declaration belongs to
+	public Declaration(String name, int nameId, TypeDenoter type, SourcePosition posn) {
 		super(posn);
 		this.name = name;
+		this.nameId = nameId;
 		this.type = type;
 		this.isArrayLength = false;
 		this.isStaticFieldRef = false;
@@ -21,6 +21,10 @@ public class ExprList implements Iterable<Expression>
         return elist.get(i);
     }
     
+    public void set(int i, Expression e){
+        elist.set(i, e);
+    }
+    
     public int size() {
         return elist.size();
     }
@@ -9,8 +9,8 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 
 public class FieldDecl extends MemberDecl {
 	
-	public FieldDecl(boolean isPrivate, boolean isStatic, TypeDenoter t, String name, SourcePosition posn){
-    super(isPrivate, isStatic, t, name, posn);
+	public FieldDecl(boolean isPrivate, boolean isStatic, TypeDenoter t, String name, int nameId, SourcePosition posn){
+    super(isPrivate, isStatic, t, name, nameId, posn);
 	}
 	
 	public FieldDecl(MemberDecl md, SourcePosition posn) {
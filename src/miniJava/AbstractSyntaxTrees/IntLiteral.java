@@ -16,4 +16,16 @@ public class IntLiteral extends Terminal {
   public <A,R> R visit(Visitor<A,R> v, A o) {
       return v.visitIntLiteral(this, o);
   }
+
+  // the value of the literal, parsed the first time it is asked for
+  public int value() {
+      if (!parsed) {
+          value = Integer.parseInt(spelling);
+          parsed = true;
+      }
+      return value;
+  }
+
+  private int value;
+  private boolean parsed;
 }
\ No newline at end of file
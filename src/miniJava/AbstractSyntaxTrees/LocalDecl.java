@@ -9,8 +9,8 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 
 public abstract class LocalDecl extends Declaration {
 	
-	public LocalDecl(String name, TypeDenoter t, SourcePosition posn){
-		super(name,t,posn);
+	public LocalDecl(String name, int nameId, TypeDenoter t, SourcePosition posn){
+		super(name,nameId,t,posn);
 	}
 
 }
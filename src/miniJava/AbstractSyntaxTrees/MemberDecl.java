@@ -9,14 +9,14 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 
 abstract public class MemberDecl extends Declaration {
 
-    public MemberDecl(boolean isPrivate, boolean isStatic, TypeDenoter mt, String name, SourcePosition posn) {
-        super(name, mt, posn);
+    public MemberDecl(boolean isPrivate, boolean isStatic, TypeDenoter mt, String name, int nameId, SourcePosition posn) {
+        super(name, nameId, mt, posn);
         this.isPrivate = isPrivate;
         this.isStatic = isStatic;
     }
     
     public MemberDecl(MemberDecl md, SourcePosition posn){
-    	super(md.name, md.type, posn);
+    	super(md.name, md.nameId, md.type, posn);
     	this.isPrivate = md.isPrivate;
     	this.isStatic = md.isStatic;
     }
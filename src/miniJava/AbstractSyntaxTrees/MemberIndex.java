@@ -0,0 +1,57 @@
+package miniJava.AbstractSyntaxTrees;
+
+// members of a class by NameTable id, built once when the class is declared and never changed
+// a field hides a method of the same name, and the first of several members with one name is kept,
+// which is the member a scan of the field list and then the method list would find
+public class MemberIndex {
+
+    private final int[] keys;
+    private final MemberDecl[] values;
+
+    public MemberIndex(FieldDeclList fdl, MethodDeclList mdl) {
+        int capacity = 4;
+        // keep the table at most half full
+        while (capacity < 2 * (fdl.size() + mdl.size())) {
+            capacity *= 2;
+        }
+        keys = new int[capacity];
+        values = new MemberDecl[capacity];
+        for (FieldDecl fd : fdl) {
+            add(fd);
+        }
+        for (MethodDecl md : mdl) {
+            add(md);
+        }
+    }
+
+    // member with the given name, null if the class has none
+    public MemberDecl get(int nameId) {
+        int mask = keys.length - 1;
+        int i = mix(nameId) & mask;
+        while (values[i] != null) {
+            if (keys[i] == nameId) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    private void add(MemberDecl md) {
+        int mask = keys.length - 1;
+        int i = mix(md.nameId) & mask;
+        while (values[i] != null) {
+            if (keys[i] == md.nameId) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = md.nameId;
+        values[i] = md;
+    }
+
+    // ids are dense so neighbouring names would otherwise land in neighbouring slots
+    private static int mix(int nameId) {
+        return nameId * 0x9E3779B9;
+    }
+}
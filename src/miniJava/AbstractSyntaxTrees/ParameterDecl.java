@@ -9,8 +9,8 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 
 public class ParameterDecl extends LocalDecl {
 	
-	public ParameterDecl(TypeDenoter t, String name, SourcePosition posn){
-		super(name, t, posn);
+	public ParameterDecl(TypeDenoter t, String name, int nameId, SourcePosition posn){
+		super(name, nameId, t, posn);
 	}
 	
 	public <A, R> R visit(Visitor<A, R> v, A o) {
@@ -13,9 +13,11 @@ abstract public class Terminal extends AST {
   public Terminal (Token t) {
 	super(t.getPosn());
     spelling = t.spelling;
+    nameId = t.nameId;
     kind = t.kind;
   }
 
   public TokenKind kind;
   public String spelling;
+  public int nameId;
 }
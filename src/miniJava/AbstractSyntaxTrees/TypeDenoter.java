@@ -10,44 +10,44 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 abstract public class TypeDenoter extends AST {
 
     public TypeKind typeKind;
-    
+
+    // equal for types that denote the same type, see TypeUniverse
+    public final int typeId;
+
     public TypeDenoter(TypeKind type, SourcePosition posn){
+        this(type, type.ordinal(), posn);
+    }
+
+    protected TypeDenoter(TypeKind type, int typeId, SourcePosition posn){
         super(posn);
         typeKind = type;
+        this.typeId = typeId;
     }
 
     public boolean sameType(TypeDenoter other) {
+        // an unsupported type is not even the same as itself, anything else is the same as itself
+        if (typeId == other.typeId) {
+            return typeKind != TypeKind.UNSUPPORTED;
+        }
         if (typeKind == TypeKind.ERROR || other.typeKind == TypeKind.ERROR) {
             return true;
         }
         if (typeKind == TypeKind.UNSUPPORTED || other.typeKind == TypeKind.UNSUPPORTED) {
             return false;
         }
+        // null is the same as any class or array type, and no two other distinct types are the same
         if (typeKind == TypeKind.NULL) {
-            return other.typeKind == TypeKind.CLASS || other.typeKind == TypeKind.ARRAY || other.typeKind == TypeKind.NULL;
+            return other.typeKind == TypeKind.CLASS || other.typeKind == TypeKind.ARRAY;
         }
-        if (typeKind == TypeKind.CLASS) {
-            if (other.typeKind == TypeKind.CLASS) {
-                return ((ClassType) this).className.spelling.equals(((ClassType) other).className.spelling);
-            }
-            return other.typeKind == TypeKind.NULL;
+        if (other.typeKind == TypeKind.NULL) {
+            return typeKind == TypeKind.CLASS || typeKind == TypeKind.ARRAY;
         }
 //        if (typeKind == TypeKind.ACTUALCLASS) {
 //            if (other.typeKind == TypeKind.ACTUALCLASS) {
 //
 //            }
 //        }
-        if (this.typeKind == TypeKind.ARRAY) {
-            if (other.typeKind == TypeKind.ARRAY) {
-                if ( ( ( (ArrayType) (this) ).eltType.typeKind == TypeKind.CLASS ) && ( ( (ArrayType) (other) ).eltType.typeKind == TypeKind.CLASS ) ) {
-                    return ( (ClassType) ((ArrayType) (this)).eltType ).className.spelling.equals
-                            (( (ClassType) ((ArrayType) (other)).eltType ).className.spelling);
-                }
-                return ((ArrayType)(this)).eltType.typeKind == ((ArrayType)other).eltType.typeKind;
-            }
-            return other.typeKind == TypeKind.NULL;
-        }
-        return typeKind == other.typeKind;
+        return false;
     }
 
 //    public boolean comparable(TypeDenoter other) {
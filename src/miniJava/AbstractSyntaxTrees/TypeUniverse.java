@@ -0,0 +1,96 @@
+package miniJava.AbstractSyntaxTrees;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import miniJava.SyntacticAnalyzer.Token;
+
+// one shared instance of every type an expression can have, and the ids types are compared by
+// every TypeDenoter gets an id when it is built: the ordinal of its kind for a base type,
+// one id per class name for a class type and one per element type for an array type,
+// so two types written in different places have the same id exactly when they denote the same type
+// base types are shared by every compilation, class and array ids come from the names of one compilation,
+// so class and array types are shared within a universe of their own for each compilation
+// the shared instances are never decorated and are safe to use from several threads
+public final class TypeUniverse {
+
+    public static final BaseType VOID = new BaseType(TypeKind.VOID, null);
+    public static final BaseType INT = new BaseType(TypeKind.INT, null);
+    public static final BaseType BOOLEAN = new BaseType(TypeKind.BOOLEAN, null);
+    public static final BaseType UNSUPPORTED = new BaseType(TypeKind.UNSUPPORTED, null);
+    public static final BaseType ERROR = new BaseType(TypeKind.ERROR, null);
+    public static final BaseType NULL = new BaseType(TypeKind.NULL, null);
+
+    // class ids follow the ids of the base kinds, array ids are their element id with ARRAY_BIT set
+    private static final int CLASS_BASE = TypeKind.values().length;
+    private static final int ARRAY_BIT = 1 << 30;
+
+    private final ConcurrentHashMap<Integer, ClassType> classTypes = new ConcurrentHashMap<Integer, ClassType>();
+    private final ConcurrentHashMap<Integer, ArrayType> arrayTypes = new ConcurrentHashMap<Integer, ArrayType>();
+
+    public TypeUniverse() {
+    }
+
+    static int classId(int nameId) {
+        return CLASS_BASE + nameId;
+    }
+
+    static int arrayId(int eltId) {
+        return eltId | ARRAY_BIT;
+    }
+
+    // a new class type of the class with the given name, for its declaration to have as its type
+    public static ClassType classType(String name, int nameId) {
+        return new ClassType(new Identifier(new Token(Token.TokenKind.ID, name, nameId, null)), null);
+    }
+
+    // the shared class type of the class named by the given one
+    private ClassType classType(ClassType classType) {
+        int nameId = classType.className.nameId;
+        ClassType type = classTypes.get(nameId);
+        if (type == null) {
+            ClassType created = classType(classType.className.spelling, nameId);
+            type = classTypes.putIfAbsent(nameId, created);
+            if (type == null) {
+                type = created;
+            }
+        }
+        return type;
+    }
+
+    // the array type with elements of the given type
+    public ArrayType arrayOf(TypeDenoter eltType) {
+        ArrayType type = arrayTypes.get(eltType.typeId);
+        if (type == null) {
+            ArrayType created = new ArrayType(canonical(eltType), null);
+            type = arrayTypes.putIfAbsent(eltType.typeId, created);
+            if (type == null) {
+                type = created;
+            }
+        }
+        return type;
+    }
+
+    // the shared instance of the type denoted by the given one
+    public TypeDenoter canonical(TypeDenoter type) {
+        switch (type.typeKind) {
+            case VOID:
+                return VOID;
+            case INT:
+                return INT;
+            case BOOLEAN:
+                return BOOLEAN;
+            case UNSUPPORTED:
+                return UNSUPPORTED;
+            case ERROR:
+                return ERROR;
+            case NULL:
+                return NULL;
+            case CLASS:
+                return classType((ClassType) type);
+            case ARRAY:
+                return arrayOf(((ArrayType) type).eltType);
+            default:
+                return type;
+        }
+    }
+}
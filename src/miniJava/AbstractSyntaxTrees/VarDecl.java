@@ -9,8 +9,8 @@ import miniJava.SyntacticAnalyzer.SourcePosition;
 
 public class VarDecl extends LocalDecl {
 	
-	public VarDecl(TypeDenoter t, String name, SourcePosition posn) {
-		super(name, t, posn);
+	public VarDecl(TypeDenoter t, String name, int nameId, SourcePosition posn) {
+		super(name, nameId, t, posn);
 	}
 	
 	public <A,R> R visit(Visitor<A,R> v, A o) {
@@ -6,10 +6,22 @@ import mJAM.Machine.Prim;
 
 import miniJava.AbstractSyntaxTrees.*;
 import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.ContextualAnalyzer.Prelude;
 import miniJava.ErrorReporter;
+import miniJava.IR.BasicBlock;
+import miniJava.IR.ControlFlowGraph;
+import miniJava.IR.IREmitter;
+import miniJava.IR.IRLowering;
+import miniJava.IR.IRPrinter;
+import miniJava.IR.IRProgram;
+import miniJava.IR.Instr;
+import miniJava.NameTable;
 import miniJava.SyntacticAnalyzer.SourcePosition;
 import miniJava.SyntacticAnalyzer.Token;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Stack;
 
@@ -27,6 +39,23 @@ public class CodeGenerator implements Visitor<Object, Object> {
 
     boolean debug = true;
 
+    // clean up the finished code store with the PeepholeOptimizer before it is written
+    private boolean peephole = false;
+
+    // lower the AST to the basic blocks of miniJava.IR and emit the code from there, and with irDump
+    // write the IR next to the object file
+    private boolean ir = false;
+    private boolean irDump = false;
+
+    // compile && and || with jumps, so the right operand only runs when the left one does not decide
+    // the result, and compile them as the condition of an if or while straight into its jumps
+    private boolean shortCircuit = false;
+
+    // compile the condition of an if or while into jumps taken on the operands themselves where mJAM
+    // allows it: ! swaps which way the jump goes, comparing with a literal jumps on that literal, and
+    // && and || jump on their operands as with shortCircuit
+    private boolean fuseBranches = false;
+
     public CodeGenerator(AST ast, ErrorReporter reporter) {
         this.ast = ast;
         this.reporter = reporter;
@@ -34,6 +63,23 @@ public class CodeGenerator implements Visitor<Object, Object> {
         methodPatches = new ArrayList<MethodPatch>();
     }
 
+    public void setPeephole(boolean peephole) {
+        this.peephole = peephole;
+    }
+
+    public void setIR(boolean ir, boolean irDump) {
+        this.ir = ir || irDump;
+        this.irDump = irDump;
+    }
+
+    public void setShortCircuit(boolean shortCircuit) {
+        this.shortCircuit = shortCircuit;
+    }
+
+    public void setFuseBranches(boolean fuseBranches) {
+        this.fuseBranches = fuseBranches;
+    }
+
     static class CodeGenerationError extends Error {
         private static final long serialVersionUID = 1L;
     }
@@ -44,17 +90,25 @@ public class CodeGenerator implements Visitor<Object, Object> {
     }
 
     public void generate(String fileName) {
-        staticFieldPushAddr = Machine.nextInstrAddr();
-        Machine.emit(Op.PUSH, 0);
+        if (ir) {
+            generateThroughIR(fileName);
+        } else {
+            staticFieldPushAddr = Machine.nextInstrAddr();
+            Machine.emit(Op.PUSH, 0);
 
-        Machine.emit(Op.LOADL, 0);
-        Machine.emit(Prim.newarr);
+            Machine.emit(Op.LOADL, 0);
+            Machine.emit(Prim.newarr);
 
-        mainAddr = Machine.nextInstrAddr();
-        Machine.emit(Op.CALL, Machine.Reg.CB, 0);
-        Machine.emit(Op.HALT, 0, 0, 0);
+            mainAddr = Machine.nextInstrAddr();
+            Machine.emit(Op.CALL, Machine.Reg.CB, 0);
+            Machine.emit(Op.HALT, 0, 0, 0);
 
-        ast.visit(this, null);
+            ast.visit(this, null);
+        }
+
+        if (peephole) {
+            optimize();
+        }
 
         String objectCodeFileName = fileName.replace(".java", ".mJAM");
 //        System.out.print("Writing objectFile " + objectCodeFileName + " ... ");
@@ -82,9 +136,82 @@ public class CodeGenerator implements Visitor<Object, Object> {
         }
     }
 
+    // lower the AST to the basic blocks of miniJava.IR and emit the code from there instead of
+    // generating it directly, the code is the same either way
+    private void generateThroughIR(String fileName) {
+        Package prog = (Package) ast;
+        IRLowering lowering = new IRLowering(prog, layout(prog), reporter);
+        lowering.setShortCircuit(shortCircuit);
+        lowering.setFuseBranches(fuseBranches);
+        IRProgram program = lowering.lower();
+
+        if (irDump) {
+            String irFileName = fileName.replace(".java", ".ir");
+            try (PrintWriter out = new PrintWriter(new FileWriter(irFileName))) {
+                new IRPrinter(out).print(program);
+            } catch (IOException e) {
+                compileError("Writing IR file unsuccessful", new SourcePosition(-1));
+            }
+        }
+
+        new IREmitter(program).emit();
+
+        // the emitter placed the methods and filled in the calls, keep both for the peephole optimizer
+        for (ControlFlowGraph graph : program.graphs) {
+            if (graph.method != null) {
+                graph.method.rED.displacement = graph.entry().address;
+            }
+        }
+        for (ControlFlowGraph graph : program.graphs) {
+            for (BasicBlock block : graph.blocks) {
+                for (Instr instr : block.instrs) {
+                    if (instr.target != null && instr.target.graph.method != null
+                            && (instr.op == Op.CALL.ordinal() || instr.op == Op.CALLI.ordinal())) {
+                        methodPatches.add(new MethodPatch(instr.address, instr.target.graph.method));
+                    }
+                }
+            }
+        }
+    }
+
+    private void optimize() {
+        PeepholeOptimizer optimizer = new PeepholeOptimizer();
+        optimizer.optimize();
+
+        // methods have moved, patch their calls again, except calls that were unreachable and dropped
+        for (ClassDecl cd : ((Package) ast).classDeclList) {
+            for (MethodDecl md : cd.methodDeclList) {
+                md.rED.displacement = optimizer.newTarget(md.rED.displacement);
+            }
+        }
+        for (MethodPatch methodPatch : methodPatches) {
+            methodPatch.methodCodeAddress = optimizer.newAddress(methodPatch.methodCodeAddress);
+            if (methodPatch.methodCodeAddress >= 0) {
+                Machine.patch(methodPatch.methodCodeAddress, methodPatch.methodDecl.rED.displacement);
+            }
+        }
+    }
+
     @Override
     public Object visitPackage(Package prog, Object arg) {
-        int staticFieldOffset = 0;
+        Machine.patch(staticFieldPushAddr, layout(prog));
+        Machine.patch(mainAddr, Machine.nextInstrAddr());
+
+        for (ClassDecl c : prog.classDeclList)
+            c.visit(this, null);
+
+        for (MethodPatch methodPatch : methodPatches) {
+            Machine.patch(methodPatch.methodCodeAddress, methodPatch.methodDecl.rED.displacement);
+        }
+
+        return null;
+    }
+
+    // place the fields, check main and give every method its final return, for generating the code
+    // of the program either way, and return the number of static fields
+    private int layout(Package prog) {
+        // the prelude's static fields come first, their slots are fixed
+        int staticFieldOffset = Prelude.STATIC_FIELDS;
         for (ClassDecl classDecl : prog.classDeclList) {
             int instanceFieldOffset = 0;
             for (FieldDecl fieldDecl : classDecl.fieldDeclList) {
@@ -98,33 +225,30 @@ public class CodeGenerator implements Visitor<Object, Object> {
             classDecl.rED = new RuntimeEntityDescription(instanceFieldOffset);
         }
 
-        Machine.patch(staticFieldPushAddr, staticFieldOffset);
-        Machine.patch(mainAddr, Machine.nextInstrAddr());
-
         // check main method
         boolean foundMain = false;
         for (ClassDecl cd : prog.classDeclList) {
-            for (MethodDecl md : cd.methodDeclList) {
-                if (md.name.equals("main")) {
-                    if (md.parameterDeclList.size() == 1) {
-                        if (md.parameterDeclList.get(0).type.typeKind == TypeKind.ARRAY) {
-                            ArrayType arrayType = (ArrayType) md.parameterDeclList.get(0).type;
-                            ClassType classType = (ClassType) arrayType.eltType;
-
-                            if ( classType.className.spelling.equals("String") ) {
-                                if (foundMain) {
-                                    compileError("Duplicate main declaration in package", md.posn);
-                                }
-
-                                foundMain = true;
-
-                                if (md.isPrivate) {
-                                    compileError("Private main method", md.posn);
-                                }
-
-                                if ( !(md.isStatic) ) {
-                                    compileError("Non static main method", md.posn);
-                                }
+            MemberDecl member = cd.members.get(NameTable.MAIN);
+            if (member instanceof MethodDecl) {
+                MethodDecl md = (MethodDecl) member;
+                if (md.parameterDeclList.size() == 1) {
+                    if (md.parameterDeclList.get(0).type.typeKind == TypeKind.ARRAY) {
+                        ArrayType arrayType = (ArrayType) md.parameterDeclList.get(0).type;
+                        ClassType classType = (ClassType) arrayType.eltType;
+
+                        if ( classType.className.nameId == NameTable.STRING ) {
+                            if (foundMain) {
+                                compileError("Duplicate main declaration in package", md.posn);
+                            }
+
+                            foundMain = true;
+
+                            if (md.isPrivate) {
+                                compileError("Private main method", md.posn);
+                            }
+
+                            if ( !(md.isStatic) ) {
+                                compileError("Non static main method", md.posn);
                             }
                         }
                     }
@@ -146,14 +270,7 @@ public class CodeGenerator implements Visitor<Object, Object> {
             }
         }
 
-        for (ClassDecl c : prog.classDeclList)
-            c.visit(this, null);
-
-        for (MethodPatch methodPatch : methodPatches) {
-            Machine.patch(methodPatch.methodCodeAddress, methodPatch.methodDecl.rED.displacement);
-        }
-
-        return null;
+        return staticFieldOffset;
     }
 
     @Override
@@ -227,6 +344,8 @@ public class CodeGenerator implements Visitor<Object, Object> {
 
     @Override
     public Object visitBlockStmt(BlockStmt stmt, Object arg) {
+        // a nested block counts its own locals, the enclosing block's count is picked up again after it
+        int enclosingPopCount = this.localAllocationPopCount;
         this.localAllocationPopCount = 0;
         for (Statement statement : stmt.sl)
             statement.visit(this, null);
@@ -234,6 +353,7 @@ public class CodeGenerator implements Visitor<Object, Object> {
             this.localsOffset -= this.localAllocationPopCount;
             Machine.emit(Op.POP, this.localAllocationPopCount);
         }
+        this.localAllocationPopCount = enclosingPopCount;
         return null;
     }
 
@@ -335,16 +455,13 @@ public class CodeGenerator implements Visitor<Object, Object> {
 
     @Override
     public Object visitIfStmt(IfStmt stmt, Object arg) {
-        stmt.cond.visit(this, null);
-
-        int baseJumpAddr = Machine.nextInstrAddr();
-        Machine.emit(Op.JUMPIF, 0, Machine.Reg.CB, 0);
+        ArrayList<Integer> elseJumps = jumpIf(stmt.cond, Machine.falseRep);
 
         stmt.thenStmt.visit(this, null);
 
         int endJumpAddr = Machine.nextInstrAddr();
         Machine.emit(Op.JUMP, 0, Machine.Reg.CB, 0);
-        Machine.patch(baseJumpAddr, Machine.nextInstrAddr());
+        patchJumps(elseJumps, Machine.nextInstrAddr());
 
         if (stmt.elseStmt != null) {
             stmt.elseStmt.visit(this, null);
@@ -364,14 +481,124 @@ public class CodeGenerator implements Visitor<Object, Object> {
 
         int endJumpAddr = Machine.nextInstrAddr();
 
-        stmt.cond.visit(this, null);
-        Machine.emit(Op.JUMPIF, 1, Machine.Reg.CB, baseJumpAddr + 1);
+        patchJumps(jumpIf(stmt.cond, Machine.trueRep), baseJumpAddr + 1);
 
         Machine.patch(baseJumpAddr, endJumpAddr);
 
         return null;
     }
 
+    // emit code that jumps when the condition evaluates to value and falls through otherwise,
+    // and return the addresses of the jumps so the caller can patch them to their target
+    private ArrayList<Integer> jumpIf(Expression cond, int value) {
+        ArrayList<Integer> jumps = new ArrayList<Integer>();
+        jumpIf(cond, value, jumps);
+        return jumps;
+    }
+
+    private void jumpIf(Expression cond, int value, ArrayList<Integer> jumps) {
+        if ((shortCircuit || fuseBranches) && isShortCircuit(cond)) {
+            BinaryExpr expr = (BinaryExpr) cond;
+            int decidingValue = decidingValue(expr);
+            if (value == decidingValue) {
+                // either operand having the deciding value is enough to jump
+                jumpIf(expr.left, value, jumps);
+                jumpIf(expr.right, value, jumps);
+            } else {
+                // the left operand having the deciding value means the jump is not taken
+                ArrayList<Integer> skipJumps = jumpIf(expr.left, decidingValue);
+                jumpIf(expr.right, value, jumps);
+                patchJumps(skipJumps, Machine.nextInstrAddr());
+            }
+            return;
+        }
+        if (fuseBranches && cond instanceof UnaryExpr && ((UnaryExpr) cond).operator.kind == Token.TokenKind.NOT) {
+            jumpIf(((UnaryExpr) cond).expr, value == Machine.trueRep ? Machine.falseRep : Machine.trueRep, jumps);
+            return;
+        }
+        if (fuseBranches && isEquality(cond)) {
+            BinaryExpr expr = (BinaryExpr) cond;
+            Integer literal = jumpIfValue(expr.right);
+            Expression operand = expr.left;
+            if (literal == null) {
+                literal = jumpIfValue(expr.left);
+                operand = expr.right;
+            }
+            if (literal != null) {
+                // JUMPIF compares with the literal itself, so a == k jumps on k and a != k falls through on k
+                operand.visit(this, null);
+                boolean jumpOnEqual = (expr.operator.kind == Token.TokenKind.EQUALS) == (value == Machine.trueRep);
+                if (jumpOnEqual) {
+                    jumps.add(Machine.nextInstrAddr());
+                    Machine.emit(Op.JUMPIF, literal, Machine.Reg.CB, 0);
+                } else {
+                    int skipJumpAddr = Machine.nextInstrAddr();
+                    Machine.emit(Op.JUMPIF, literal, Machine.Reg.CB, 0);
+                    jumps.add(Machine.nextInstrAddr());
+                    Machine.emit(Op.JUMP, 0, Machine.Reg.CB, 0);
+                    Machine.patch(skipJumpAddr, Machine.nextInstrAddr());
+                }
+                return;
+            }
+        }
+        cond.visit(this, null);
+        jumps.add(Machine.nextInstrAddr());
+        Machine.emit(Op.JUMPIF, value, Machine.Reg.CB, 0);
+    }
+
+    private void patchJumps(ArrayList<Integer> jumps, int target) {
+        for (int jumpAddr : jumps) {
+            Machine.patch(jumpAddr, target);
+        }
+    }
+
+    // these tests are shared with miniJava.IR.IRLowering, which has to choose the same code
+    public static boolean isShortCircuit(Expression expr) {
+        if (expr instanceof BinaryExpr) {
+            Token.TokenKind kind = ((BinaryExpr) expr).operator.kind;
+            return kind == Token.TokenKind.AND || kind == Token.TokenKind.OR;
+        }
+        return false;
+    }
+
+    public static boolean isEquality(Expression expr) {
+        if (expr instanceof BinaryExpr) {
+            Token.TokenKind kind = ((BinaryExpr) expr).operator.kind;
+            return kind == Token.TokenKind.EQUALS || kind == Token.TokenKind.NOTEQUAL;
+        }
+        return false;
+    }
+
+    // the word a literal is represented by, null if the expression is not a literal
+    public static Integer literalValue(Expression expr) {
+        if (!(expr instanceof LiteralExpr)) {
+            return null;
+        }
+        Terminal lit = ((LiteralExpr) expr).lit;
+        if (lit instanceof IntLiteral) {
+            return ((IntLiteral) lit).value();
+        } else if (lit instanceof BooleanLiteral) {
+            return lit.spelling.equals("true") ? Machine.trueRep : Machine.falseRep;
+        } else if (lit instanceof NullLiteral) {
+            return Machine.nullRep;
+        }
+        return null;
+    }
+
+    // the literal as the n of a JUMPIF, null if it is not a literal or does not fit in the 8 bits of n
+    public static Integer jumpIfValue(Expression expr) {
+        Integer literal = literalValue(expr);
+        if (literal == null || literal < 0 || literal > 255) {
+            return null;
+        }
+        return literal;
+    }
+
+    // the value of the left operand of && or || that is the value of the whole expression
+    public static int decidingValue(BinaryExpr expr) {
+        return expr.operator.kind == Token.TokenKind.AND ? Machine.falseRep : Machine.trueRep;
+    }
+
     @Override
     public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
         // TODO: check
@@ -388,6 +615,19 @@ public class CodeGenerator implements Visitor<Object, Object> {
 
     @Override
     public Object visitBinaryExpr(BinaryExpr expr, Object arg) {
+        if (shortCircuit && isShortCircuit(expr)) {
+            // the right operand is the value unless the left one decides it
+            int decidingValue = decidingValue(expr);
+            ArrayList<Integer> decidedJumps = jumpIf(expr.left, decidingValue);
+            expr.right.visit(this, null);
+            int endJumpAddr = Machine.nextInstrAddr();
+            Machine.emit(Op.JUMP, 0, Machine.Reg.CB, 0);
+            patchJumps(decidedJumps, Machine.nextInstrAddr());
+            Machine.emit(Op.LOADL, decidingValue);
+            Machine.patch(endJumpAddr, Machine.nextInstrAddr());
+            return null;
+        }
+
         // TODO: check
         expr.left.visit(this, null);
         expr.right.visit(this, null);
@@ -560,6 +800,7 @@ public class CodeGenerator implements Visitor<Object, Object> {
         switch (op.kind) {
             case GREATER:
                 Machine.emit(Prim.gt);
+                break;
             case LESS:
                 Machine.emit(Prim.lt);
                 break;
@@ -582,7 +823,7 @@ public class CodeGenerator implements Visitor<Object, Object> {
                 Machine.emit(Prim.or);
                 break;
             case NOT:
-                Machine.emit(Prim.neg);
+                Machine.emit(Prim.not);
                 break;
             case PLUS:
                 Machine.emit(Prim.add);
@@ -605,8 +846,7 @@ public class CodeGenerator implements Visitor<Object, Object> {
 
     @Override
     public Object visitIntLiteral(IntLiteral num, Object arg) {
-        int intValue = Integer.parseInt(num.spelling);
-        Machine.emit(Op.LOADL, intValue);
+        Machine.emit(Op.LOADL, num.value());
         return null;
     }
 
@@ -0,0 +1,470 @@
+package miniJava.CodeGenerator;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.Token;
+
+// rewrites a type checked program before code generation
+// int and boolean operators whose operands are literals are replaced by the literal they evaluate to,
+// adding 0, multiplying by 1 or 0 and the like are dropped where the operand left out has no effect,
+// and if and while statements whose condition is a literal keep only the branch that can run
+// expressions visit to the expression that replaces them, statements to the statement that replaces
+// them or null when they are dropped, everything else to null
+public class ConstantFolding implements Visitor<Object, Object> {
+
+    private AST ast;
+
+    public ConstantFolding(AST ast) {
+        this.ast = ast;
+    }
+
+    public void fold() {
+        ast.visit(this, null);
+    }
+
+
+    // Package and declarations
+
+    @Override
+    public Object visitPackage(Package prog, Object arg) {
+        for (ClassDecl cd : prog.classDeclList) {
+            cd.visit(this, null);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitClassDecl(ClassDecl cd, Object arg) {
+        for (MethodDecl md : cd.methodDeclList) {
+            md.visit(this, null);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitFieldDecl(FieldDecl fd, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitMethodDecl(MethodDecl md, Object arg) {
+        md.statementList = foldStatements(md.statementList);
+        return null;
+    }
+
+    @Override
+    public Object visitParameterDecl(ParameterDecl pd, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitVarDecl(VarDecl decl, Object arg) {
+        return null;
+    }
+
+
+    // Types
+
+    @Override
+    public Object visitBaseType(BaseType type, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitClassType(ClassType type, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitArrayType(ArrayType type, Object arg) {
+        return null;
+    }
+
+
+    // Statements
+
+    // only statements in a list are dropped, a branch or loop body that can never run is left in place
+    // so the shape of the statement around it does not change
+    private StatementList foldStatements(StatementList statements) {
+        StatementList folded = new StatementList();
+        for (Statement statement : statements) {
+            Statement result = (Statement) statement.visit(this, null);
+            if (result != null) {
+                folded.add(result);
+            }
+        }
+        return folded;
+    }
+
+    private Statement foldBranch(Statement statement) {
+        Statement result = (Statement) statement.visit(this, null);
+        return result != null ? result : statement;
+    }
+
+    @Override
+    public Object visitBlockStmt(BlockStmt stmt, Object arg) {
+        stmt.sl = foldStatements(stmt.sl);
+        return stmt;
+    }
+
+    @Override
+    public Object visitVardeclStmt(VarDeclStmt stmt, Object arg) {
+        stmt.initExp = fold(stmt.initExp);
+        return stmt;
+    }
+
+    @Override
+    public Object visitAssignStmt(AssignStmt stmt, Object arg) {
+        stmt.val = fold(stmt.val);
+        return stmt;
+    }
+
+    @Override
+    public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
+        stmt.ix = fold(stmt.ix);
+        stmt.exp = fold(stmt.exp);
+        return stmt;
+    }
+
+    @Override
+    public Object visitCallStmt(CallStmt stmt, Object arg) {
+        foldArguments(stmt.argList);
+        return stmt;
+    }
+
+    @Override
+    public Object visitReturnStmt(ReturnStmt stmt, Object arg) {
+        if (stmt.returnExpr != null) {
+            stmt.returnExpr = fold(stmt.returnExpr);
+        }
+        return stmt;
+    }
+
+    @Override
+    public Object visitIfStmt(IfStmt stmt, Object arg) {
+        stmt.cond = fold(stmt.cond);
+        stmt.thenStmt = foldBranch(stmt.thenStmt);
+        if (stmt.elseStmt != null) {
+            stmt.elseStmt = foldBranch(stmt.elseStmt);
+        }
+
+        if (isBoolean(stmt.cond)) {
+            if (booleanValue(stmt.cond)) {
+                return stmt.thenStmt;
+            }
+            return stmt.elseStmt;
+        }
+        return stmt;
+    }
+
+    @Override
+    public Object visitWhileStmt(WhileStmt stmt, Object arg) {
+        stmt.cond = fold(stmt.cond);
+        stmt.body = foldBranch(stmt.body);
+
+        if (isBoolean(stmt.cond) && !booleanValue(stmt.cond)) {
+            return null;
+        }
+        return stmt;
+    }
+
+
+    // Expressions
+
+    private Expression fold(Expression expr) {
+        return (Expression) expr.visit(this, null);
+    }
+
+    private void foldArguments(ExprList arguments) {
+        for (int i = 0; i < arguments.size(); i++) {
+            arguments.set(i, fold(arguments.get(i)));
+        }
+    }
+
+    @Override
+    public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
+        expr.expr = fold(expr.expr);
+        Expression operand = expr.expr;
+
+        if (expr.operator.kind == Token.TokenKind.MINUS) {
+            // -c, unless c is the smallest int and its negation does not fit
+            if (isInt(operand) && intValue(operand) != Integer.MIN_VALUE) {
+                return intLiteral(-intValue(operand), expr.posn);
+            }
+        } else if (expr.operator.kind == Token.TokenKind.NOT) {
+            if (isBoolean(operand)) {
+                return booleanLiteral(!booleanValue(operand), expr.posn);
+            }
+            // !!b
+            if (operand instanceof UnaryExpr && ((UnaryExpr) operand).operator.kind == Token.TokenKind.NOT) {
+                return ((UnaryExpr) operand).expr;
+            }
+        }
+        return expr;
+    }
+
+    @Override
+    public Object visitBinaryExpr(BinaryExpr expr, Object arg) {
+        expr.left = fold(expr.left);
+        expr.right = fold(expr.right);
+        Expression left = expr.left;
+        Expression right = expr.right;
+
+        if (isInt(left) && isInt(right)) {
+            Expression result = foldInts(expr.operator.kind, intValue(left), intValue(right), expr.posn);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (isBoolean(left) && isBoolean(right)) {
+            Expression result = foldBooleans(expr.operator.kind, booleanValue(left), booleanValue(right), expr.posn);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        switch (expr.operator.kind) {
+            case PLUS:
+                // x + 0 and 0 + x
+                if (isInt(right, 0)) {
+                    return left;
+                }
+                if (isInt(left, 0)) {
+                    return right;
+                }
+                break;
+            case MINUS:
+                // x - 0
+                if (isInt(right, 0)) {
+                    return left;
+                }
+                break;
+            case MULT:
+                // x * 1 and 1 * x, x * 0 and 0 * x when evaluating x does nothing else
+                if (isInt(right, 1)) {
+                    return left;
+                }
+                if (isInt(left, 1)) {
+                    return right;
+                }
+                if (isInt(right, 0) && isPure(left)) {
+                    return right;
+                }
+                if (isInt(left, 0) && isPure(right)) {
+                    return left;
+                }
+                break;
+            case DIV:
+                // x / 1
+                if (isInt(right, 1)) {
+                    return left;
+                }
+                break;
+            case AND:
+                // true && b and b && true, false && b, and b && false when evaluating b does nothing else
+                if (isBoolean(left)) {
+                    return booleanValue(left) ? right : left;
+                }
+                if (isBoolean(right) && (booleanValue(right) || isPure(left))) {
+                    return booleanValue(right) ? left : right;
+                }
+                break;
+            case OR:
+                // false || b and b || false, true || b, and b || true when evaluating b does nothing else
+                if (isBoolean(left)) {
+                    return booleanValue(left) ? left : right;
+                }
+                if (isBoolean(right) && (!booleanValue(right) || isPure(left))) {
+                    return booleanValue(right) ? right : left;
+                }
+                break;
+            default:
+                break;
+        }
+        return expr;
+    }
+
+    // null when the operation is not folded, because it divides by zero or its result does not fit in an int
+    private Expression foldInts(Token.TokenKind kind, int left, int right, SourcePosition posn) {
+        try {
+            switch (kind) {
+                case PLUS:
+                    return intLiteral(Math.addExact(left, right), posn);
+                case MINUS:
+                    return intLiteral(Math.subtractExact(left, right), posn);
+                case MULT:
+                    return intLiteral(Math.multiplyExact(left, right), posn);
+                case DIV:
+                    if (right == 0 || left == Integer.MIN_VALUE && right == -1) {
+                        return null;
+                    }
+                    return intLiteral(left / right, posn);
+                case LESS:
+                    return booleanLiteral(left < right, posn);
+                case GREATER:
+                    return booleanLiteral(left > right, posn);
+                case LESSEQUAL:
+                    return booleanLiteral(left <= right, posn);
+                case GREATEREQUAL:
+                    return booleanLiteral(left >= right, posn);
+                case EQUALS:
+                    return booleanLiteral(left == right, posn);
+                case NOTEQUAL:
+                    return booleanLiteral(left != right, posn);
+                default:
+                    return null;
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private Expression foldBooleans(Token.TokenKind kind, boolean left, boolean right, SourcePosition posn) {
+        switch (kind) {
+            case AND:
+                return booleanLiteral(left && right, posn);
+            case OR:
+                return booleanLiteral(left || right, posn);
+            case EQUALS:
+                return booleanLiteral(left == right, posn);
+            case NOTEQUAL:
+                return booleanLiteral(left != right, posn);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Object visitRefExpr(RefExpr expr, Object arg) {
+        return expr;
+    }
+
+    @Override
+    public Object visitIxExpr(IxExpr expr, Object arg) {
+        expr.ixExpr = fold(expr.ixExpr);
+        return expr;
+    }
+
+    @Override
+    public Object visitCallExpr(CallExpr expr, Object arg) {
+        foldArguments(expr.argList);
+        return expr;
+    }
+
+    @Override
+    public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
+        return expr;
+    }
+
+    @Override
+    public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
+        return expr;
+    }
+
+    @Override
+    public Object visitNewArrayExpr(NewArrayExpr expr, Object arg) {
+        expr.sizeExpr = fold(expr.sizeExpr);
+        return expr;
+    }
+
+
+    // References and terminals, nothing in them is folded
+
+    @Override
+    public Object visitThisRef(ThisRef ref, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitIdRef(IdRef ref, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitQRef(QualRef ref, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitIdentifier(Identifier id, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitOperator(Operator op, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitIntLiteral(IntLiteral num, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitBooleanLiteral(BooleanLiteral bool, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitNullLiteral(NullLiteral nullLiteral, Object arg) {
+        return null;
+    }
+
+
+    // Literals
+
+    private static boolean isInt(Expression expr) {
+        return expr instanceof LiteralExpr && ((LiteralExpr) expr).lit instanceof IntLiteral;
+    }
+
+    private static boolean isInt(Expression expr, int value) {
+        return isInt(expr) && intValue(expr) == value;
+    }
+
+    private static int intValue(Expression expr) {
+        return ((IntLiteral) ((LiteralExpr) expr).lit).value();
+    }
+
+    private static boolean isBoolean(Expression expr) {
+        return expr instanceof LiteralExpr && ((LiteralExpr) expr).lit instanceof BooleanLiteral;
+    }
+
+    private static boolean booleanValue(Expression expr) {
+        return ((LiteralExpr) expr).lit.kind == Token.TokenKind.TRUE;
+    }
+
+    private static LiteralExpr intLiteral(int value, SourcePosition posn) {
+        LiteralExpr literal = new LiteralExpr(new IntLiteral(new Token(Token.TokenKind.NUM, Integer.toString(value), posn)), posn);
+        literal.typeAttribute = TypeUniverse.INT;
+        return literal;
+    }
+
+    private static LiteralExpr booleanLiteral(boolean value, SourcePosition posn) {
+        Token.TokenKind kind = value ? Token.TokenKind.TRUE : Token.TokenKind.FALSE;
+        LiteralExpr literal = new LiteralExpr(new BooleanLiteral(new Token(kind, kind.spelling, posn)), posn);
+        literal.typeAttribute = TypeUniverse.BOOLEAN;
+        return literal;
+    }
+
+    // an expression that can be left out without changing what the program does: it only reads
+    // variables and fields of this object and cannot fail, so no calls, array accesses, field accesses
+    // through another object, allocations or divisions
+    private static boolean isPure(Expression expr) {
+        if (expr instanceof LiteralExpr) {
+            return true;
+        }
+        if (expr instanceof RefExpr) {
+            Reference ref = ((RefExpr) expr).ref;
+            return ref instanceof IdRef || ref instanceof ThisRef;
+        }
+        if (expr instanceof UnaryExpr) {
+            return isPure(((UnaryExpr) expr).expr);
+        }
+        if (expr instanceof BinaryExpr) {
+            BinaryExpr binary = (BinaryExpr) expr;
+            return binary.operator.kind != Token.TokenKind.DIV && isPure(binary.left) && isPure(binary.right);
+        }
+        return false;
+    }
+}
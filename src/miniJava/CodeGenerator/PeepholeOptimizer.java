@@ -0,0 +1,260 @@
+package miniJava.CodeGenerator;
+
+import mJAM.Instruction;
+import mJAM.Machine;
+import mJAM.Machine.Op;
+import mJAM.Machine.Prim;
+import mJAM.Machine.Reg;
+
+// rewrites the finished code store a few instructions at a time, repeating until nothing changes
+// rules: jumps to jumps go straight to the final target, jumps to the next instruction are dropped,
+// code after an unconditional transfer that nothing jumps to is dropped, adding or subtracting 0 and
+// multiplying or dividing by 1 are dropped, 0 - x becomes a negation, a value pushed and popped again
+// is never pushed, and adjacent pops are merged
+// an instruction that is the target of a jump or call only ever starts a rewritten sequence, so
+// control never lands in the middle of one, and every code address is moved along when code is dropped
+public class PeepholeOptimizer {
+
+    private static final int LOAD = Op.LOAD.ordinal();
+    private static final int LOADA = Op.LOADA.ordinal();
+    private static final int LOADL = Op.LOADL.ordinal();
+    private static final int CALL = Op.CALL.ordinal();
+    private static final int CALLI = Op.CALLI.ordinal();
+    private static final int RETURN = Op.RETURN.ordinal();
+    private static final int PUSH = Op.PUSH.ordinal();
+    private static final int POP = Op.POP.ordinal();
+    private static final int JUMP = Op.JUMP.ordinal();
+    private static final int JUMPIF = Op.JUMPIF.ordinal();
+    private static final int HALT = Op.HALT.ordinal();
+    private static final int CB = Reg.CB.ordinal();
+    private static final int PB = Reg.PB.ordinal();
+
+    private Instruction[] code;
+    private int count;
+
+    // instructions that some jump or call goes to, and those to be dropped in the current pass
+    private boolean[] target;
+    private boolean[] dropped;
+
+    // current address of the instruction first emitted at each address, or of the first instruction
+    // kept after it once it is dropped, and the current end of the code
+    private int[] address;
+    private boolean[] gone;
+
+    private int removed;
+
+    public PeepholeOptimizer() {
+        code = Machine.code;
+        count = Machine.nextInstrAddr();
+        address = new int[count + 1];
+        gone = new boolean[count + 1];
+        for (int i = 0; i <= count; i++) {
+            address[i] = i;
+        }
+    }
+
+    public void optimize() {
+        boolean changed = true;
+        while (changed) {
+            findTargets();
+            changed = threadJumps();
+            changed |= rewrite();
+            if (changed) {
+                compact();
+            }
+        }
+        Machine.CT = count;
+    }
+
+    // where the instruction emitted at the given address ended up, -1 if it was dropped
+    public int newAddress(int oldAddress) {
+        return gone[oldAddress] ? -1 : address[oldAddress];
+    }
+
+    // where control that went to the given address goes now, the same instruction or, when that was
+    // dropped, the one kept after it, as for jumps, so a method whose first instruction went keeps an entry
+    public int newTarget(int oldAddress) {
+        return address[oldAddress];
+    }
+
+    // number of instructions dropped from the code store
+    public int removed() {
+        return removed;
+    }
+
+    private boolean isCodeAddress(Instruction instr) {
+        return instr.r == CB && (instr.op == JUMP || instr.op == JUMPIF || instr.op == CALL || instr.op == CALLI);
+    }
+
+    private boolean isPrim(Instruction instr, Prim prim) {
+        return instr.op == CALL && instr.r == PB && instr.d == prim.ordinal();
+    }
+
+    // instructions that only push one word
+    private boolean isPush(Instruction instr) {
+        return instr.op == LOAD || instr.op == LOADA || instr.op == LOADL;
+    }
+
+    private boolean isPop(Instruction instr) {
+        return instr.op == POP && instr.n == 0;
+    }
+
+    private void findTargets() {
+        target = new boolean[count + 1];
+        dropped = new boolean[count];
+        // execution starts at the first instruction
+        target[0] = true;
+        for (int i = 0; i < count; i++) {
+            if (isCodeAddress(code[i]) && code[i].d >= 0 && code[i].d <= count) {
+                target[code[i].d] = true;
+            }
+        }
+    }
+
+    // send jumps that land on an unconditional jump to where that one goes, and replace jumps to a return
+    // by the return itself
+    private boolean threadJumps() {
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            Instruction instr = code[i];
+            if (instr.r != CB || (instr.op != JUMP && instr.op != JUMPIF)) {
+                continue;
+            }
+            int d = instr.d;
+            // a cycle of jumps is left alone once every instruction has been visited
+            for (int hops = 0; hops < count && d < count && code[d].op == JUMP && code[d].r == CB && d != code[d].d; hops++) {
+                d = code[d].d;
+            }
+            if (d != instr.d) {
+                instr.d = d;
+                changed = true;
+            }
+            if (instr.op == JUMP && d < count && code[d].op == RETURN) {
+                code[i] = new Instruction(RETURN, code[d].n, code[d].r, code[d].d);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean rewrite() {
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            Instruction instr = code[i];
+
+            // jumps to the next instruction, a conditional one still pops its condition
+            if (instr.r == CB && instr.d == i + 1) {
+                if (instr.op == JUMP) {
+                    drop(i);
+                    changed = true;
+                    continue;
+                }
+                if (instr.op == JUMPIF) {
+                    code[i] = new Instruction(POP, 0, 0, 1);
+                    changed = true;
+                    continue;
+                }
+            }
+
+            // nothing reaches code after an unconditional transfer until the next jump or call target
+            if (instr.op == RETURN || instr.op == HALT || (instr.op == JUMP && instr.r == CB)) {
+                for (int j = i + 1; j < count && !target[j]; j++) {
+                    drop(j);
+                    changed = true;
+                    i = j;
+                }
+                continue;
+            }
+
+            if (i + 1 >= count || target[i + 1]) {
+                continue;
+            }
+            Instruction next = code[i + 1];
+
+            // x + 0, x - 0, x * 1 and x / 1
+            if (instr.op == LOADL && instr.d == 0 && (isPrim(next, Prim.add) || isPrim(next, Prim.sub))
+                    || instr.op == LOADL && instr.d == 1 && (isPrim(next, Prim.mult) || isPrim(next, Prim.div))) {
+                drop(i);
+                drop(i + 1);
+                changed = true;
+                i++;
+                continue;
+            }
+
+            // a value that is popped right after it is pushed
+            if (isPush(instr) && isPop(next) && next.d >= 1) {
+                drop(i);
+                if (next.d == 1) {
+                    drop(i + 1);
+                } else {
+                    next.d--;
+                }
+                changed = true;
+                i++;
+                continue;
+            }
+
+            // adjacent pops, and pops or pushes of nothing
+            if (isPop(instr) && isPop(next)) {
+                next.d += instr.d;
+                drop(i);
+                changed = true;
+                continue;
+            }
+            if ((isPop(instr) || instr.op == PUSH) && instr.d == 0) {
+                drop(i);
+                changed = true;
+                continue;
+            }
+
+            // 0 - x for a single push x, as unary minus is emitted, becomes x negated, or -x for a literal
+            if (instr.op == LOADL && instr.d == 0 && isPush(next) && i + 2 < count && !target[i + 2]
+                    && isPrim(code[i + 2], Prim.sub)) {
+                drop(i);
+                if (next.op == LOADL) {
+                    next.d = -next.d;
+                    drop(i + 2);
+                } else {
+                    code[i + 2] = new Instruction(CALL, 0, PB, Prim.neg.ordinal());
+                }
+                changed = true;
+                i += 2;
+            }
+        }
+        return changed;
+    }
+
+    private void drop(int i) {
+        dropped[i] = true;
+    }
+
+    // move the kept instructions down over the dropped ones and correct every code address
+    private void compact() {
+        int[] moved = new int[count + 1];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            moved[i] = kept;
+            if (!dropped[i]) {
+                code[kept++] = code[i];
+            }
+        }
+        moved[count] = kept;
+        for (int i = kept; i < count; i++) {
+            code[i] = null;
+        }
+        for (int i = 0; i < kept; i++) {
+            if (isCodeAddress(code[i]) && code[i].d >= 0 && code[i].d <= count) {
+                code[i].d = moved[code[i].d];
+            }
+        }
+        for (int i = 0; i < address.length; i++) {
+            int a = address[i];
+            if (!gone[i] && a < count && dropped[a]) {
+                gone[i] = true;
+            }
+            address[i] = moved[a];
+        }
+        removed += count - kept;
+        count = kept;
+    }
+}
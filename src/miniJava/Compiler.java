@@ -1,14 +1,19 @@
 package miniJava;
 
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.InputStream;
+import java.io.IOException;
 
 import miniJava.CodeGenerator.CodeGenerator;
+import miniJava.CodeGenerator.ConstantFolding;
 import miniJava.ContextualAnalyzer.Identification;
 import miniJava.ContextualAnalyzer.TypeChecking;
+import miniJava.SyntacticAnalyzer.ByteBufferCharSource;
+import miniJava.SyntacticAnalyzer.CharSource;
 import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.ParallelParser;
 import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.TokenPipeline;
+import miniJava.SyntacticAnalyzer.TokenStream;
 import miniJava.AbstractSyntaxTrees.*;
 
 public class Compiler {
@@ -16,21 +21,116 @@ public class Compiler {
     public static void main (String[] args) {
 
         // my compiler
-        InputStream inputStream = null;
+        // options: -tokenstream lexes the whole file before parsing
+        //          -refscanner scans with the hand written reference scanner instead of the tables
+        //          -pipeline scans on a separate thread while parsing
+        //          -parallel parses the classes of the program in parallel
+        //          -recursiveexpr parses expressions with one method per precedence level
+        //          -compactast shares source positions between the nodes on a line, to save memory at some cost in parse time
+        //          -parallelid identifies the classes of the program in parallel
+        //          -paralleltc type checks the methods of the program in parallel
+        //          -fused type checks the program during identification instead of in a pass of its own
+        //          -fold folds constant expressions and branches before generating code
+        //          -shortcircuit skips the right operand of && and || when the left one decides the result
+        //          -fusebranches compiles the conditions of if and while statements into jumps on their operands
+        //          -peephole cleans up the generated code with a peephole optimizer
+        //          -ir lowers the program to basic blocks and generates the code from them
+        //          -irdump does the same and writes the basic blocks to a .ir file
+        //          -qualrefstats prints how many qualified reference steps identification took from its cache
+        String fileName = null;
+        boolean tokenStream = false;
+        boolean referenceScanner = false;
+        boolean pipeline = false;
+        boolean parallel = false;
+        boolean recursiveExpressions = false;
+        boolean compactAst = false;
+        boolean parallelIdentification = false;
+        boolean parallelTypeChecking = false;
+        boolean fused = false;
+        boolean qualRefStats = false;
+        boolean fold = false;
+        boolean shortCircuit = false;
+        boolean fuseBranches = false;
+        boolean peephole = false;
+        boolean ir = false;
+        boolean irDump = false;
+        for (String arg : args) {
+            if (arg.equals("-tokenstream")) {
+                tokenStream = true;
+            } else if (arg.equals("-refscanner")) {
+                referenceScanner = true;
+            } else if (arg.equals("-pipeline")) {
+                pipeline = true;
+            } else if (arg.equals("-parallel")) {
+                parallel = true;
+            } else if (arg.equals("-recursiveexpr")) {
+                recursiveExpressions = true;
+            } else if (arg.equals("-compactast")) {
+                compactAst = true;
+            } else if (arg.equals("-parallelid")) {
+                parallelIdentification = true;
+            } else if (arg.equals("-paralleltc")) {
+                parallelTypeChecking = true;
+            } else if (arg.equals("-fused")) {
+                fused = true;
+            } else if (arg.equals("-qualrefstats")) {
+                qualRefStats = true;
+            } else if (arg.equals("-fold")) {
+                fold = true;
+            } else if (arg.equals("-shortcircuit")) {
+                shortCircuit = true;
+            } else if (arg.equals("-fusebranches")) {
+                fuseBranches = true;
+            } else if (arg.equals("-peephole")) {
+                peephole = true;
+            } else if (arg.equals("-ir")) {
+                ir = true;
+            } else if (arg.equals("-irdump")) {
+                irDump = true;
+            } else {
+                fileName = arg;
+            }
+        }
+
+        ErrorReporter errorReporter = new ErrorReporter();
+        // the names of this compilation, every path below scans identifiers into it
+        NameTable names = new NameTable();
+        Parser parser = null;
+        TokenPipeline tokens = null;
+        ParallelParser parallelParser = null;
         try {
-            inputStream = new FileInputStream(args[0]);
+            if (tokenStream) {
+                TokenStream stream = TokenStream.lex(ByteBufferCharSource.load(fileName), referenceScanner, names);
+                parser = new Parser(stream.cursor(errorReporter), errorReporter);
+            } else if (parallel) {
+                parallelParser = new ParallelParser(ByteBufferCharSource.load(fileName), errorReporter, referenceScanner, names);
+                parallelParser.setRecursiveExpressions(recursiveExpressions);
+                parallelParser.setCompactAst(compactAst);
+            } else if (pipeline) {
+                tokens = TokenPipeline.start(CharSource.open(fileName), errorReporter, referenceScanner, names);
+                parser = new Parser(tokens, errorReporter);
+            } else {
+                Scanner scanner = new Scanner(CharSource.open(fileName), errorReporter, referenceScanner, names);
+                parser = new Parser(scanner, errorReporter);
+            }
         } catch (FileNotFoundException e) {
-            System.out.println("Input file: " + args[0] + " not found");
+            System.out.println("Input file: " + fileName + " not found");
+            System.exit(3);
+        } catch (IOException e) {
+            System.out.println("Input file: " + fileName + " could not be read");
             System.exit(3);
         }
-
-        ErrorReporter errorReporter = new ErrorReporter();
-        Scanner scanner = new Scanner(inputStream, errorReporter);
-        Parser parser = new Parser(scanner, errorReporter);
+        if (parser != null) {
+            parser.setRecursiveExpressions(recursiveExpressions);
+            parser.setCompactAst(compactAst);
+        }
         // turn trace on in Parser for debugging
 
 //        System.out.println("Beginning syntactic analysis: ...");
-        AST ast = parser.parse();
+        AST ast = parallelParser != null ? parallelParser.parse() : parser.parse();
+        if (tokens != null) {
+            tokens.cancel();
+        }
 //        System.out.println("Syntactic analysis complete:");
         if (errorReporter.hasErrors()) {
             System.out.println("Syntactically invalid miniJava program");
@@ -40,7 +140,17 @@ public class Compiler {
 //            new ASTDisplay().showTree(ast);
 //            System.out.println("Beginning identification: ...");
             Identification identification = new Identification(ast, errorReporter);
+            identification.setParallel(parallelIdentification);
+            DeferredErrorReporter typeErrors = null;
+            if (fused) {
+                typeErrors = new DeferredErrorReporter();
+                identification.setTypeChecking(typeErrors);
+            }
             identification.identify();
+            if (qualRefStats) {
+                System.err.println("QualRef cache: " + identification.qualRefHits() + " hits, "
+                        + identification.qualRefMisses() + " misses");
+            }
 //            System.out.println("Identification complete:");
             if (errorReporter.hasErrors()) {
                 System.out.println("Identification unsuccessful - contextually invalid miniJava program");
@@ -48,8 +158,13 @@ public class Compiler {
             } else {
 //                System.out.println("Identification successful");
 //                System.out.println("Beginning type checking: ...");
-                TypeChecking typeChecker = new TypeChecking(ast, errorReporter);
-                typeChecker.typeCheck();
+                if (typeErrors != null) {
+                    typeErrors.replay(errorReporter);
+                } else {
+                    TypeChecking typeChecker = new TypeChecking(ast, errorReporter);
+                    typeChecker.setParallel(parallelTypeChecking);
+                    typeChecker.typeCheck();
+                }
 //                System.out.println("Type checking complete:");
                 if (errorReporter.hasErrors()) {
                     System.out.println("Type checking unsuccessful - contextually invalid miniJava program");
@@ -57,8 +172,15 @@ public class Compiler {
                 } else {
 //                    System.out.println("Type checking successful - contextually valid miniJava program");
 //                    System.out.println("Beginning code generation: ...");
+                    if (fold) {
+                        new ConstantFolding(ast).fold();
+                    }
                     CodeGenerator codeGenerator = new CodeGenerator(ast, errorReporter);
-                    codeGenerator.generate(args[0]);
+                    codeGenerator.setShortCircuit(shortCircuit);
+                    codeGenerator.setFuseBranches(fuseBranches);
+                    codeGenerator.setPeephole(peephole);
+                    codeGenerator.setIR(ir, irDump);
+                    codeGenerator.generate(fileName);
 //                    System.out.println("Code generation complete:");
                     if (errorReporter.hasErrors()) {
                         System.out.println("Code generation unsuccessful");
@@ -3,59 +3,60 @@ package miniJava.ContextualAnalyzer;
 import miniJava.AbstractSyntaxTrees.Declaration;
 import miniJava.ErrorReporter;
 
-import java.util.HashMap;
 
 public class IdTable {
 
     private ErrorReporter reporter;
-    public ModifiedStack stack;
-    public HashMap<String, Declaration> currentScope;
+    private ScopeTable scopes;
+
+    // scope levels counted from 0: classes, members, parameters, then nested local blocks
+    static final int PARAMETER_LEVEL = 2;
 
     public IdTable(ErrorReporter reporter) {
         this.reporter = reporter;
-        stack = new ModifiedStack();
+        // the prelude classes are in the outermost scope along with the program's classes
+        scopes = new ScopeTable(Prelude.scope(), 0);
+    }
+
+    // a table whose scopes nest inside the scopes open in outer, which must not change while this one is used
+    public IdTable(ErrorReporter reporter, IdTable outer) {
+        this.reporter = reporter;
+        scopes = new ScopeTable(outer.scopes, outer.scopes.level() + 1);
     }
 
     public void openScope() {
-        currentScope = new HashMap<String, Declaration>();
-        stack.push(currentScope);
+        scopes.openScope();
     }
 
     public void enter(Declaration decl) {
-        if (currentScope.containsKey(decl.name)) {
+        int level = scopes.level();
+        if (scopes.scopeLevel(decl.nameId) == level) {
             throw new IllegalArgumentException("Duplicate declaration (name already declared in current scope)");
         }
-        if (stack.topOfStack >= 4) {
-            for (int i = 2; i < stack.arrList.size(); i++) {
-                if (stack.arrList.get(i).containsKey(decl.name)) {
-                    throw new IllegalArgumentException("Declarations at level 4 or higher may not hide declarations at level 3 or higher");
-                }
-            }
+        // parameters and locals may not be hidden in nested blocks
+        if (level > PARAMETER_LEVEL && scopes.shallowestLocalLevel(decl.nameId) >= 0) {
+            throw new IllegalArgumentException("Declarations at level 4 or higher may not hide declarations at level 3 or higher");
         }
-        currentScope.put(decl.name, decl);
+        scopes.enter(decl.nameId, decl);
     }
 
     public void closeScope() {
-        stack.pop();
-        if (stack.topOfStack == 0) {
-            return;
-        }
-        currentScope = stack.peek();
+        scopes.closeScope();
     }
 
-    public Declaration search(String s) {
-        return stack.search(s);
+    public Declaration search(int nameId) {
+        return scopes.search(nameId);
     }
 
-    public int scopeLevel(String s) {
-        return stack.scopeLevel(s);
+    public int scopeLevel(int nameId) {
+        return scopes.scopeLevel(nameId);
     }
 
-    public Declaration searchClasses(String s) {
-        return stack.searchClasses(s);
+    public Declaration searchClasses(int nameId) {
+        return scopes.searchLevel(nameId, 0);
     }
 
-    public boolean contains(String s) {
-        return stack.contains(s);
+    public boolean contains(int nameId) {
+        return scopes.scopeLevel(nameId) >= 0;
     }
 }
@@ -1,10 +1,14 @@
 package miniJava.ContextualAnalyzer;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import miniJava.AbstractSyntaxTrees.*;
 import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.DeferredErrorReporter;
 import miniJava.ErrorReporter;
+import miniJava.NameTable;
 import miniJava.SyntacticAnalyzer.SourcePosition;
-import miniJava.SyntacticAnalyzer.Token;
 
 public class Identification implements Visitor<Object, Object> {
 
@@ -13,55 +17,60 @@ public class Identification implements Visitor<Object, Object> {
     private ClassDecl currentClass;
     private boolean withinStaticMethod;
     private AST ast;
-    private String declaredVariable;
+    private int declaredVariable;
+
+    // identify class bodies on the fork join pool, each against the shared scope of class declarations
+    private boolean parallel = false;
+
+    // type check each node as soon as it is identified, into typeErrors, see setTypeChecking
+    private TypeChecking checker;
+    private DeferredErrorReporter typeErrors;
+
+    // steps of qualified references resolved so far in the current method
+    private QualRefCache qualRefs = new QualRefCache();
+    // cache hits and misses of the classes identified by workers
+    private long workerHits;
+    private long workerMisses;
 
     public Identification(AST ast, ErrorReporter reporter) {
         this.reporter = reporter;
         this.table = new IdTable(reporter);
         this.ast = ast;
         this.withinStaticMethod = false;
-        this.declaredVariable = null;
-
-        //attempt to add predefined classes
-//        Token classname = new Token(Token.TokenKind.ID, "System", null);
-//        FieldDeclList fdl = new FieldDeclList();
-//        MethodDeclList mdl = new MethodDeclList();
-//
-//        TypeDenoter td = new ClassType(new Identifier(classname), null);
-//        fdl.add(new FieldDecl(false, true, td, out, new SourcePosition(memberLineNum)));
-
-//        classname = new Token(Token.TokenKind.ID, "_PrintStream", null);
-//        classname = new Token(Token.TokenKind.ID, "String", null);
-
-//        ClassType _PrintStream = new ClassType(new Identifier(new Token(Token.TokenKind.ID, "_PrintStream", null)), null);
-//        FieldDecl out = new FieldDecl(false, true, _PrintStream, "out", null);
-//        ClassDecl system = new ClassDecl("System", new FieldDeclList(), new MethodDeclList(), null);
-
-        FieldDeclList fieldDeclListSystem = new FieldDeclList();
-        fieldDeclListSystem.add(new FieldDecl(false, true, new ClassType(new Identifier(new Token
-                (Token.TokenKind.ID, "_PrintStream", null)), null), "out", null));
-        ClassDecl system = new ClassDecl("System", fieldDeclListSystem, new MethodDeclList(), null);
-
-        // toggle isStaticFieldAccess within the declaration of System.out
-        system.fieldDeclList.get(0).isStaticFieldRef = true;
+        this.declaredVariable = -1;
+    }
 
-        MethodDeclList methodDeclListPrintSystem = new MethodDeclList();
-        ParameterDeclList parameterDeclList = new ParameterDeclList();
-        parameterDeclList.add(new ParameterDecl(new BaseType(TypeKind.INT, null), "n", null));
+    // identifies the body of one class, with its own scopes nested inside the scope of all classes
+    private Identification(IdTable classes, ErrorReporter reporter, DeferredErrorReporter typeErrors, TypeUniverse types) {
+        this.reporter = reporter;
+        this.table = new IdTable(reporter, classes);
+        this.withinStaticMethod = false;
+        this.declaredVariable = -1;
+        if (typeErrors != null) {
+            this.checker = new TypeChecking(null, typeErrors, types);
+            this.typeErrors = typeErrors;
+        }
+    }
 
-        MethodDecl printLnMethodDecl = new MethodDecl(new FieldDecl(false, false, new BaseType
-                (TypeKind.VOID, null), "println", null), parameterDeclList, new StatementList(), null);
-        methodDeclListPrintSystem.add(printLnMethodDecl);
-        printLnMethodDecl.isPrintLn = true;
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
 
-        ClassDecl printStream = new ClassDecl("_PrintStream", new FieldDeclList(), methodDeclListPrintSystem, null);
+    // type check the program in the same visit, collecting type errors instead of reporting them
+    // if identification succeeds typeErrors then holds what the type checking pass would report,
+    // otherwise it is meaningless, as the type checking pass would not run
+    public void setTypeChecking(DeferredErrorReporter typeErrors) {
+        this.checker = new TypeChecking(ast, typeErrors);
+        this.typeErrors = typeErrors;
+    }
 
-        ClassDecl string = new ClassDecl("String", new FieldDeclList(), new MethodDeclList(), null);
+    // number of qualified reference steps taken from the cache, and looked up in a class
+    public long qualRefHits() {
+        return qualRefs.hits() + workerHits;
+    }
 
-        Package astAsPackage = (Package) ast;
-        astAsPackage.classDeclList.add(system);
-        astAsPackage.classDeclList.add(printStream);
-        astAsPackage.classDeclList.add(string);
+    public long qualRefMisses() {
+        return qualRefs.misses() + workerMisses;
     }
 
     // identificationError is used to trace error when identification fails
@@ -82,6 +91,21 @@ public class Identification implements Visitor<Object, Object> {
         catch (Identification.IdentificationError e) {
 
         }
+        catch (RuntimeException e) {
+            if (checker == null) {
+                throw e;
+            }
+            // type checking can stop part way on an exception, which it reports, so the program
+            // is analyzed again in two passes to report exactly what they would
+            // an exception from identification itself is thrown again by the first pass
+            Identification identification = new Identification(ast, reporter);
+            identification.setParallel(parallel);
+            identification.identify();
+            typeErrors.clear();
+            if (!reporter.hasErrors()) {
+                checker.typeCheck();
+            }
+        }
 //        catch (Exception e) {
 //            reporter.reportError("Should not encounter exceptions in identification. Exception message: " + e.getMessage());
 //        }
@@ -106,8 +130,12 @@ public class Identification implements Visitor<Object, Object> {
         }
 
         //then visit classes
-        for(ClassDecl cd: prog.classDeclList) {
-            cd.visit(this, null);
+        if (parallel) {
+            identifyClasses(prog.classDeclList);
+        } else {
+            for(ClassDecl cd: prog.classDeclList) {
+                cd.visit(this, null);
+            }
         }
 
 
@@ -116,6 +144,84 @@ public class Identification implements Visitor<Object, Object> {
     }
 
 
+    // class bodies only read the scope of classes, so they are identified independently
+    // only the errors of the first class in source order that has any are reported,
+    // as if the classes had been visited one after another
+    private void identifyClasses(ClassDeclList classes) {
+        int count = classes.size();
+        // the tasks split ranges down to one class, so there must be at least one
+        if (count == 0) {
+            return;
+        }
+        DeferredErrorReporter[] errors = new DeferredErrorReporter[count];
+        RuntimeException[] failures = new RuntimeException[count];
+        DeferredErrorReporter[] classTypeErrors = checker == null ? null : new DeferredErrorReporter[count];
+        ForkJoinPool.commonPool().invoke(new IdentifyClasses(classes, errors, classTypeErrors, failures, 0, count));
+        for (int i = 0; i < count; i++) {
+            if (failures[i] != null) {
+                throw failures[i];
+            }
+            if (errors[i].hasErrors()) {
+                errors[i].replay(reporter);
+                throw new IdentificationError();
+            }
+        }
+        if (checker != null) {
+            for (DeferredErrorReporter classErrors : classTypeErrors) {
+                classErrors.replay(typeErrors);
+            }
+        }
+    }
+
+    // identifies the classes from low up to high, splitting the range in half until one class is left
+    private class IdentifyClasses extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private ClassDeclList classes;
+        private DeferredErrorReporter[] errors;
+        private DeferredErrorReporter[] typeErrors;
+        private RuntimeException[] failures;
+        private int low;
+        private int high;
+
+        IdentifyClasses(ClassDeclList classes, DeferredErrorReporter[] errors, DeferredErrorReporter[] typeErrors,
+                        RuntimeException[] failures, int low, int high) {
+            this.classes = classes;
+            this.errors = errors;
+            this.typeErrors = typeErrors;
+            this.failures = failures;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low == 1) {
+                errors[low] = new DeferredErrorReporter();
+                if (typeErrors != null) {
+                    typeErrors[low] = new DeferredErrorReporter();
+                }
+                Identification worker = new Identification(table, errors[low],
+                        typeErrors == null ? null : typeErrors[low], checker == null ? null : checker.types);
+                try {
+                    classes.get(low).visit(worker, null);
+                } catch (IdentificationError e) {
+                    // reported through errors[low]
+                } catch (RuntimeException e) {
+                    failures[low] = e;
+                }
+                synchronized (Identification.this) {
+                    workerHits += worker.qualRefs.hits();
+                    workerMisses += worker.qualRefs.misses();
+                }
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            invokeAll(new IdentifyClasses(classes, errors, typeErrors, failures, low, mid),
+                    new IdentifyClasses(classes, errors, typeErrors, failures, mid, high));
+        }
+    }
+
+
     // Declarations
 
     @Override
@@ -166,6 +272,7 @@ public class Identification implements Visitor<Object, Object> {
 
         // let method body know the access modifier of the method by setting withinStaticMethod flag
         withinStaticMethod = md.isStatic;
+        qualRefs.clear();
 
         table.openScope();
         for (ParameterDecl pd : md.parameterDeclList) {
@@ -177,6 +284,9 @@ public class Identification implements Visitor<Object, Object> {
         }
         table.closeScope();
         table.closeScope();
+        if (checker != null) {
+            checker.checkMethodDecl(md);
+        }
         return null;
     }
 
@@ -213,7 +323,7 @@ public class Identification implements Visitor<Object, Object> {
     @Override
     public Object visitClassType(ClassType type, Object arg) {
         Identifier classTypeName = type.className;
-        Declaration originalDecl = table.searchClasses(classTypeName.spelling);
+        Declaration originalDecl = table.searchClasses(classTypeName.nameId);
         if (originalDecl == null) {
             idError("Undeclared class type", type.posn);
         }
@@ -260,16 +370,22 @@ public class Identification implements Visitor<Object, Object> {
         // check for reference to left varDecl on all references on the right
         // if forbidden variable shows up throw idError
 
-        this.declaredVariable = stmt.varDecl.name;
+        this.declaredVariable = stmt.varDecl.nameId;
         stmt.initExp.visit(this, null);
-        this.declaredVariable = null;
+        this.declaredVariable = -1;
         stmt.varDecl.visit(this, null);
+        if (checker != null) {
+            checker.checkVarDeclStmt(stmt);
+        }
         return null;
     }
 
     @Override
     public Object visitAssignStmt(AssignStmt stmt, Object arg) {
         stmt.ref.visit(this, null);
+        if (checker != null) {
+            checker.checkAssignRef(stmt);
+        }
         stmt.val.visit(this, null);
 
         if (stmt.ref.decl instanceof FieldDecl) {
@@ -278,6 +394,9 @@ public class Identification implements Visitor<Object, Object> {
                 stmt.ref.decl.isStaticFieldRef = true;
             }
         }
+        if (checker != null) {
+            checker.checkAssignValue(stmt);
+        }
         return null;
     }
 
@@ -285,7 +404,13 @@ public class Identification implements Visitor<Object, Object> {
     public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
         stmt.ref.visit(this, null);
         stmt.ix.visit(this, null);
+        if (checker != null) {
+            checker.checkIndex(stmt);
+        }
         stmt.exp.visit(this, null);
+        if (checker != null) {
+            checker.checkIxAssignStmt(stmt);
+        }
         return null;
     }
 
@@ -298,6 +423,9 @@ public class Identification implements Visitor<Object, Object> {
         if (!(stmt.methodRef.decl instanceof MethodDecl)) {
             idError("Method call in statement must point to method declaration", stmt.methodRef.posn);
         }
+        if (checker != null) {
+            checker.checkCallStmt(stmt);
+        }
         return null;
     }
 
@@ -312,6 +440,9 @@ public class Identification implements Visitor<Object, Object> {
     @Override
     public Object visitIfStmt(IfStmt stmt, Object arg) {
         stmt.cond.visit(this, null);
+        if (checker != null) {
+            checker.checkCondition(stmt);
+        }
         table.openScope();
         if (stmt.thenStmt instanceof VarDeclStmt) {
             idError("Solitary variable declaration in THEN branch of if statement", stmt.thenStmt.posn);
@@ -332,6 +463,9 @@ public class Identification implements Visitor<Object, Object> {
     @Override
     public Object visitWhileStmt(WhileStmt stmt, Object arg) {
         stmt.cond.visit(this, null);
+        if (checker != null) {
+            checker.checkCondition(stmt);
+        }
         table.openScope();
         if (stmt.body instanceof VarDeclStmt) {
             idError("Solitary variable declaration in THEN branch of if statement", stmt.body.posn);
@@ -348,6 +482,9 @@ public class Identification implements Visitor<Object, Object> {
     public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
         expr.operator.visit(this, null);
         expr.expr.visit(this, null);
+        if (checker != null) {
+            checker.checkUnaryExpr(expr);
+        }
         return null;
     }
 
@@ -356,19 +493,31 @@ public class Identification implements Visitor<Object, Object> {
         expr.operator.visit(this, null);
         expr.left.visit(this, null);
         expr.right.visit(this, null);
+        if (checker != null) {
+            checker.checkBinaryExpr(expr);
+        }
         return null;
     }
 
     @Override
     public Object visitRefExpr(RefExpr expr, Object arg) {
         expr.ref.visit(this, null);
+        if (checker != null) {
+            checker.checkRefExpr(expr);
+        }
         return null;
     }
 
     @Override
     public Object visitIxExpr(IxExpr expr, Object arg) {
         expr.ref.visit(this, null);
+        if (checker != null) {
+            checker.checkIxRef(expr);
+        }
         expr.ixExpr.visit(this, null);
+        if (checker != null) {
+            checker.checkIndex(expr);
+        }
         return null;
     }
 
@@ -378,19 +527,25 @@ public class Identification implements Visitor<Object, Object> {
         for (Expression e: expr.argList) {
             e.visit(this, null);
         }
+        if (checker != null) {
+            checker.checkCallExpr(expr);
+        }
         return null;
     }
 
     @Override
     public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
         expr.lit.visit(this, null);
+        if (checker != null) {
+            checker.checkLiteralExpr(expr);
+        }
         return null;
     }
 
     @Override
     public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
         Identifier newClassName = expr.classtype.className;
-        Declaration originalDecl = table.searchClasses(newClassName.spelling);
+        Declaration originalDecl = table.searchClasses(newClassName.nameId);
         if (originalDecl == null) {
             idError("Undeclared identifier after 'new' (not a class) in new object expr", expr.posn);
         }
@@ -398,6 +553,9 @@ public class Identification implements Visitor<Object, Object> {
 //            idError("New called on non class identifier in new object expr");
 //        }
         newClassName.decl = originalDecl;
+        if (checker != null) {
+            checker.checkNewObjectExpr(expr);
+        }
         return null;
     }
 
@@ -406,7 +564,7 @@ public class Identification implements Visitor<Object, Object> {
         TypeKind arrType = expr.eltType.typeKind;
         if (arrType == TypeKind.CLASS) {
             Identifier arrTypeName = ((ClassType)(expr.eltType)).className;
-            ClassDecl originalDecl = (ClassDecl) table.searchClasses(arrTypeName.spelling);
+            ClassDecl originalDecl = (ClassDecl) table.searchClasses(arrTypeName.nameId);
             if (originalDecl == null) {
                 idError("Undeclared class identifier after 'new' in new array expr", expr.posn);
             }
@@ -416,6 +574,9 @@ public class Identification implements Visitor<Object, Object> {
             arrTypeName.decl = originalDecl;
         }
         expr.sizeExpr.visit(this, null);
+        if (checker != null) {
+            checker.checkNewArrayExpr(expr);
+        }
         return null;
     }
 
@@ -434,12 +595,12 @@ public class Identification implements Visitor<Object, Object> {
     @Override
     public Object visitIdRef(IdRef ref, Object arg) {
         // if right hand expression of variable declaration contains name of variable throw idError
-        if (ref.id.spelling.equals(this.declaredVariable)) {
+        if (ref.id.nameId == this.declaredVariable) {
             idError("Illegal use of a declared variable in its initializing expression", ref.posn);
         }
 
         // decorate id of ref
-        Declaration originalDecl = table.search(ref.id.spelling);
+        Declaration originalDecl = table.search(ref.id.nameId);
         if (originalDecl == null) {
             idError("Undeclared identifier", ref.posn);
         }
@@ -482,43 +643,43 @@ public class Identification implements Visitor<Object, Object> {
         }
 
         // if right hand expression of variable declaration contains name of variable throw idError
-        if (id.spelling.equals(this.declaredVariable)) {
+        if (id.nameId == this.declaredVariable) {
             idError("Illegal use of a declared variable in its initializing expression", id.posn);
         }
 
         assert arg != null;
         assert arg instanceof Reference;
         if (((Reference) arg).decl.type.typeKind == TypeKind.ARRAY) {
-            if (!id.spelling.equals("length")) {
+            if (id.nameId != NameTable.LENGTH) {
                 idError("Cannot access a field of an array which is not length", id.posn);
             }
-            id.decl = new FieldDecl(false, false, new BaseType(TypeKind.INT, id.posn), "length", id.posn);
+            id.decl = new FieldDecl(false, false, TypeUniverse.INT, "length", NameTable.LENGTH, id.posn);
             id.decl.isArrayLength = true;
             return null;
         }
 
 //        System.out.println("Call to visitIdentifier: arg = " + ((Reference) arg).decl.name + ", id = " + id.spelling);
 
+        // the same step already passed every check below in this method, this.id is a single lookup anyway
+        Declaration base = ((Reference) arg).decl;
+        if (!(arg instanceof ThisRef)) {
+            MemberDecl cached = qualRefs.get(base, id.nameId);
+            if (cached != null) {
+                id.decl = cached;
+                return null;
+            }
+        }
+
         if (arg instanceof ThisRef) {
             // QualRef calling visitIdentifier method looks like this.id
             // check if identifier is a member of current class by checking currentClass declaration
-            for (FieldDecl fd : currentClass.fieldDeclList) {
-                if (id.spelling.equals(fd.name)) {
-                    if (withinStaticMethod && !fd.isStatic) {
-                        idError("Reference within static method cannot directly access a non-static member of current class", id.posn);
-                    }
-                    id.decl = fd;
-                    return null;
-                }
-            }
-            for (MethodDecl md : currentClass.methodDeclList) {
-                if (id.spelling.equals(md.name)) {
-                    if (withinStaticMethod && !md.isStatic) {
-                        idError("Reference within static method cannot directly access a non-static member of current class", id.posn);
-                    }
-                    id.decl = md;
-                    return null;
+            MemberDecl member = currentClass.members.get(id.nameId);
+            if (member != null) {
+                if (withinStaticMethod && !member.isStatic) {
+                    idError("Reference within static method cannot directly access a non-static member of current class", id.posn);
                 }
+                id.decl = member;
+                return null;
             }
             idError("Identifier not found in current class for this.ID QualRef", id.posn);
 
@@ -535,7 +696,7 @@ public class Identification implements Visitor<Object, Object> {
 
             IdRef idRef = (IdRef) arg;
 //            System.out.println("Arg is instance of idRef: arg = " + ((Reference) arg).decl.name + ", id = " + id.spelling);
-            String className;
+            int className;
 
             // boolean to mark if first id's type is the same as current class
             boolean isCurrentClass = false;
@@ -547,35 +708,26 @@ public class Identification implements Visitor<Object, Object> {
                 }
 
                 // find the class which idRef is a type of
-                className = ( (ClassType) localDecl.type ).className.spelling;
+                className = ( (ClassType) localDecl.type ).className.nameId;
                 ClassDecl classDecl = (ClassDecl) table.searchClasses(className);
                 if (classDecl == null) {
                     idError("Undeclared class identifier for localDecl of IdRef in QualRef", idRef.posn);
                 }
 
                 // mark that first id's type is the same as current class
-                if (classDecl.name.equals(currentClass.name)) {
+                if (classDecl.nameId == currentClass.nameId) {
                     isCurrentClass = true;
                 }
 
                 // search class members for id
-                for (FieldDecl fd : classDecl.fieldDeclList) {
-                    if (id.spelling.equals(fd.name)) {
-                        if (fd.isPrivate && !isCurrentClass) {
-                            idError("QualRef to a member of another class may not have private visibility", id.posn);
-                        }
-                        id.decl = fd;
-                        return null;
-                    }
-                }
-                for (MethodDecl md : classDecl.methodDeclList) {
-                    if (id.spelling.equals(md.name)) {
-                        if (md.isPrivate && !isCurrentClass) {
-                            idError("QualRef to a member of another class may not have private visibility", id.posn);
-                        }
-                        id.decl = md;
-                        return null;
+                MemberDecl member = classDecl.members.get(id.nameId);
+                if (member != null) {
+                    if (member.isPrivate && !isCurrentClass) {
+                        idError("QualRef to a member of another class may not have private visibility", id.posn);
                     }
+                    id.decl = member;
+                    qualRefs.put(base, id.nameId, member);
+                    return null;
                 }
                 idError("Identifier not found in referenced class for ID.ID QualRef, first ID points to localDecl", id.posn);
 
@@ -586,35 +738,26 @@ public class Identification implements Visitor<Object, Object> {
                 }
 
                 // find the class which idRef is a type of
-                className = ( (ClassType) memberDecl.type ).className.spelling;
+                className = ( (ClassType) memberDecl.type ).className.nameId;
                 ClassDecl classDecl = (ClassDecl) table.searchClasses(className);
                 if (classDecl == null) {
                     idError("Undeclared class identifier for memberDecl of IdRef in QualRef", idRef.posn);
                 }
 
                 // mark that first id's type is the same as current class
-                if (classDecl.name.equals(currentClass.name)) {
+                if (classDecl.nameId == currentClass.nameId) {
                     isCurrentClass = true;
                 }
 
                 // search class members for id
-                for (FieldDecl fd : classDecl.fieldDeclList) {
-                    if (id.spelling.equals(fd.name)) {
-                        if (fd.isPrivate && !isCurrentClass) {
-                            idError("QualRef to a member of another class may not have private visibility", id.posn);
-                        }
-                        id.decl = fd;
-                        return null;
-                    }
-                }
-                for (MethodDecl md : classDecl.methodDeclList) {
-                    if (id.spelling.equals(md.name)) {
-                        if (md.isPrivate && !isCurrentClass) {
-                            idError("QualRef to a member of another class may not have private visibility", id.posn);
-                        }
-                        id.decl = md;
-                        return null;
+                MemberDecl member = classDecl.members.get(id.nameId);
+                if (member != null) {
+                    if (member.isPrivate && !isCurrentClass) {
+                        idError("QualRef to a member of another class may not have private visibility", id.posn);
                     }
+                    id.decl = member;
+                    qualRefs.put(base, id.nameId, member);
+                    return null;
                 }
                 idError("Identifier not found in referenced class for ID.ID QualRef, first ID points to memberDecl", id.posn);
 
@@ -626,37 +769,31 @@ public class Identification implements Visitor<Object, Object> {
                 // also dont need to check if classDecl is a class
 
                 // mark that first id's type is the same as current class
-                if (classDecl.name.equals(currentClass.name)) {
+                if (classDecl.nameId == currentClass.nameId) {
                     isCurrentClass = true;
                 }
 
                 // search class members for id
-                for (FieldDecl fd : classDecl.fieldDeclList) {
-                    if (id.spelling.equals(fd.name)) {
-                        if (fd.isPrivate && !isCurrentClass) {
-                            idError("QualRef to a member of another class may not have private visibility", id.posn);
-                        }
-                        if (!fd.isStatic) {
-                            idError("QualRef to a member of a class must be declared to have static access", id.posn);
-                        }
-                        id.decl = fd;
-                        // static field ref
-                        classDecl.isStaticFieldRef = true;
-                        id.decl.isStaticFieldRef = true;
-                        return null;
+                MemberDecl member = classDecl.members.get(id.nameId);
+                if (member != null) {
+                    if (member.isPrivate && !isCurrentClass) {
+                        idError("QualRef to a member of another class may not have private visibility", id.posn);
                     }
-                }
-                for (MethodDecl md : classDecl.methodDeclList) {
-                    if (id.spelling.equals(md.name)) {
-                        if (md.isPrivate && !isCurrentClass) {
-                            idError("QualRef to a member of another class may not have private visibility", id.posn);
+                    if (!member.isStatic) {
+                        idError("QualRef to a member of a class must be declared to have static access", id.posn);
+                    }
+                    id.decl = member;
+                    if (member instanceof FieldDecl) {
+                        // static field ref, the prelude's System.out is marked already and must not be written
+                        if (!classDecl.isStaticFieldRef) {
+                            classDecl.isStaticFieldRef = true;
                         }
-                        if (!md.isStatic) {
-                            idError("QualRef to a member of a class must be declared to have static access", id.posn);
+                        if (!member.isStaticFieldRef) {
+                            member.isStaticFieldRef = true;
                         }
-                        id.decl = md;
-                        return null;
                     }
+                    qualRefs.put(base, id.nameId, member);
+                    return null;
                 }
                 idError("Identifier not found in referenced class for ID.ID QualRef, first ID points to classDecl", id.posn);
             }
@@ -674,7 +811,7 @@ public class Identification implements Visitor<Object, Object> {
 
             QualRef qualRef = (QualRef) arg;
 //            System.out.println("Arg is instance of QualRef: arg = " + ((Reference) arg).decl.name + ", id = " + id.spelling);
-            String className;
+            int className;
 
             // boolean to mark if first id's type is the same as current class
             boolean isCurrentClass = false;
@@ -690,7 +827,7 @@ public class Identification implements Visitor<Object, Object> {
             }
 
             // find the class which idRef is a type of
-            className = ( (ClassType) memberDecl.type ).className.spelling;
+            className = ( (ClassType) memberDecl.type ).className.nameId;
             ClassDecl classDecl = (ClassDecl) table.searchClasses(className);
             if (classDecl == null) {
                 idError("Undeclared class identifier for memberDecl of QualRef in QualRef", qualRef.posn);
@@ -698,36 +835,24 @@ public class Identification implements Visitor<Object, Object> {
             }
 
             // mark that first id's type is the same as current class
-            if (classDecl.name.equals(currentClass.name)) {
+            if (classDecl.nameId == currentClass.nameId) {
                 isCurrentClass = true;
             }
 
             // search class members for id
             // check if identifier is a member of the class referenced by the first id's decl's type
             // check if identifier has both public and static access
-            for (FieldDecl fd : classDecl.fieldDeclList) {
-                if (id.spelling.equals(fd.name)) {
-                    if (fd.isPrivate && !isCurrentClass) {
-                        idError("QualRef to a member of another class may not have private visibility", id.posn);
-                    }
-//                    if (!fd.isStatic) {
-//                        idError("QualRef to a member of a class must be declared to have static access");
-//                    }
-                    id.decl = fd;
-                    return null;
-                }
-            }
-            for (MethodDecl md : classDecl.methodDeclList) {
-                if (id.spelling.equals(md.name)) {
-                    if (md.isPrivate && !isCurrentClass) {
-                        idError("QualRef to a member of another class may not have private visibility", id.posn);
-                    }
-//                    if (!md.isStatic) {
-//                        idError("QualRef to a member of a class must be declared to have static access");
-//                    }
-                    id.decl = md;
-                    return null;
+            MemberDecl member = classDecl.members.get(id.nameId);
+            if (member != null) {
+                if (member.isPrivate && !isCurrentClass) {
+                    idError("QualRef to a member of another class may not have private visibility", id.posn);
                 }
+//                if (!member.isStatic) {
+//                    idError("QualRef to a member of a class must be declared to have static access");
+//                }
+                id.decl = member;
+                qualRefs.put(base, id.nameId, member);
+                return null;
             }
             idError("Identifier not found in referenced class for QualRef.ID QualRef", id.posn);
         }
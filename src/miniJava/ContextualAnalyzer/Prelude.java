@@ -0,0 +1,70 @@
+package miniJava.ContextualAnalyzer;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.CodeGenerator.RuntimeEntityDescription;
+import miniJava.NameTable;
+import miniJava.SyntacticAnalyzer.Token;
+
+// the predefined classes System, _PrintStream and String, built once and shared by every compilation
+// their names have the ids every NameTable gives them first
+// they are found through an outer scope of the IdTable and are never added to a program's AST,
+// so nothing may change them once they are built
+public final class Prelude {
+
+    public static final ClassDecl SYSTEM;
+    public static final ClassDecl PRINT_STREAM;
+    public static final ClassDecl STRING;
+    public static final MethodDecl PRINTLN;
+
+    // static fields of the prelude take the first slots of the static area, System.out is the only one
+    public static final int STATIC_FIELDS = 1;
+
+    private static final ScopeTable SCOPE;
+
+    static {
+        FieldDeclList fieldDeclListSystem = new FieldDeclList();
+        FieldDecl out = new FieldDecl(false, true, new ClassType(new Identifier(new Token
+                (Token.TokenKind.ID, "_PrintStream", NameTable.PRINTSTREAM, null)), null), "out", NameTable.OUT, null);
+        fieldDeclListSystem.add(out);
+        SYSTEM = new ClassDecl("System", NameTable.SYSTEM, fieldDeclListSystem, new MethodDeclList(), null);
+
+        // System.out is a static field, marked as referenced up front since the declarations are read only
+        out.isStaticFieldRef = true;
+        SYSTEM.isStaticFieldRef = true;
+
+        MethodDeclList methodDeclListPrintSystem = new MethodDeclList();
+        ParameterDeclList parameterDeclList = new ParameterDeclList();
+        // the parameter is never looked up, so its name needs no id
+        parameterDeclList.add(new ParameterDecl(TypeUniverse.INT, "n", -1, null));
+
+        PRINTLN = new MethodDecl(new FieldDecl(false, false, TypeUniverse.VOID,
+                "println", NameTable.PRINTLN, null), parameterDeclList, new StatementList(), null);
+        methodDeclListPrintSystem.add(PRINTLN);
+        PRINTLN.isPrintLn = true;
+
+        PRINT_STREAM = new ClassDecl("_PrintStream", NameTable.PRINTSTREAM, new FieldDeclList(), methodDeclListPrintSystem, null);
+
+        STRING = new ClassDecl("String", NameTable.STRING, new FieldDeclList(), new MethodDeclList(), null);
+
+        // what identification and code generation would otherwise work out for each program
+        ((ClassType) out.type).className.decl = PRINT_STREAM;
+        out.rED = new RuntimeEntityDescription(0);
+        SYSTEM.rED = new RuntimeEntityDescription(0);
+        PRINT_STREAM.rED = new RuntimeEntityDescription(0);
+        STRING.rED = new RuntimeEntityDescription(0);
+
+        SCOPE = new ScopeTable(IdTable.PARAMETER_LEVEL);
+        SCOPE.openScope();
+        SCOPE.enter(SYSTEM.nameId, SYSTEM);
+        SCOPE.enter(PRINT_STREAM.nameId, PRINT_STREAM);
+        SCOPE.enter(STRING.nameId, STRING);
+    }
+
+    private Prelude() {
+    }
+
+    // scope holding the prelude classes, for scope tables of programs to continue from
+    static ScopeTable scope() {
+        return SCOPE;
+    }
+}
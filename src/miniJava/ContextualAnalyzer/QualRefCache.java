@@ -0,0 +1,98 @@
+package miniJava.ContextualAnalyzer;
+
+import java.util.Arrays;
+
+import miniJava.AbstractSyntaxTrees.Declaration;
+import miniJava.AbstractSyntaxTrees.MemberDecl;
+
+// members already resolved for a step of a qualified reference, keyed by the declaration on the left
+// of the dot and the name on the right, so a chain that is repeated within a method is resolved once
+// a step that passed its checks once passes them again as long as the current class and whether the
+// method is static stay the same, so the cache is cleared at the start of every method
+public class QualRefCache {
+
+    private Declaration[] bases;
+    private int[] names;
+    private MemberDecl[] members;
+    private int size;
+
+    private long hits;
+    private long misses;
+
+    public QualRefCache() {
+        bases = new Declaration[16];
+        names = new int[16];
+        members = new MemberDecl[16];
+        size = 0;
+    }
+
+    // member found before for the name in the declaration's class, null if there is none yet
+    public MemberDecl get(Declaration base, int nameId) {
+        int mask = bases.length - 1;
+        int i = hash(base, nameId) & mask;
+        while (bases[i] != null) {
+            if (bases[i] == base && names[i] == nameId) {
+                hits++;
+                return members[i];
+            }
+            i = (i + 1) & mask;
+        }
+        misses++;
+        return null;
+    }
+
+    public void put(Declaration base, int nameId, MemberDecl member) {
+        // keep the table at most half full
+        if (2 * (size + 1) > bases.length) {
+            grow();
+        }
+        int mask = bases.length - 1;
+        int i = hash(base, nameId) & mask;
+        while (bases[i] != null) {
+            if (bases[i] == base && names[i] == nameId) {
+                members[i] = member;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        bases[i] = base;
+        names[i] = nameId;
+        members[i] = member;
+        size++;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(bases, null);
+            Arrays.fill(members, null);
+            size = 0;
+        }
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    private void grow() {
+        Declaration[] oldBases = bases;
+        int[] oldNames = names;
+        MemberDecl[] oldMembers = members;
+        bases = new Declaration[oldBases.length * 2];
+        names = new int[oldBases.length * 2];
+        members = new MemberDecl[oldBases.length * 2];
+        size = 0;
+        for (int i = 0; i < oldBases.length; i++) {
+            if (oldBases[i] != null) {
+                put(oldBases[i], oldNames[i], oldMembers[i]);
+            }
+        }
+    }
+
+    private static int hash(Declaration base, int nameId) {
+        return (System.identityHashCode(base) * 31 + nameId) * 0x9E3779B9;
+    }
+}
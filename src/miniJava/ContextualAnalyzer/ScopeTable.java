@@ -0,0 +1,166 @@
+package miniJava.ContextualAnalyzer;
+
+import java.util.Arrays;
+
+import miniJava.AbstractSyntaxTrees.Declaration;
+
+// nested scopes as one chain of declarations per name, innermost first, indexed by NameTable id
+// every entry is also pushed on an undo log so closing a scope only unlinks the entries it added
+// a table may continue from another, outer table whose scopes are then read only and shared,
+// as the prelude classes are shared by every compilation and the class scope by parallel identification
+// a lookup that misses in this table only goes on to the outer tables if a bitset over name ids says
+// one of them has an entry for the name, so a name that is declared nowhere costs two probes
+public class ScopeTable {
+
+    private static class Entry {
+        Declaration decl;
+        int level;
+        // shallowest level at or below localLevel declaring this name anywhere in the chain, -1 if none
+        int shallowestLocal;
+        // declaration of the same name in an enclosing scope, hidden by this one
+        Entry next;
+
+        Entry(Declaration decl, int level, int shallowestLocal, Entry next) {
+            this.decl = decl;
+            this.level = level;
+            this.shallowestLocal = shallowestLocal;
+            this.next = next;
+        }
+    }
+
+    // scopes at this index and deeper hold parameters and local variables
+    private int localLevel;
+
+    // enclosing table that must not change while this one is in use, and its number of open scopes
+    private ScopeTable outer;
+    private int baseLevel;
+
+    private Entry[] heads;
+
+    // names entered in this table, and names entered in any outer table
+    // bits are never cleared when a scope closes, so a set bit only means the name may be declared
+    private long[] entered;
+    private long[] enteredOutside;
+
+    // names entered, in order, and where each open scope starts in the log
+    private int[] log;
+    private int logSize;
+    private int[] scopeStarts;
+    private int scopeCount;
+
+    public ScopeTable(int localLevel) {
+        this(localLevel, null, 0);
+    }
+
+    // a table over the scopes currently open in outer, whose first scope is at baseLevel
+    // a first scope at the level of outer's innermost scope adds to that scope instead of nesting inside it
+    public ScopeTable(ScopeTable outer, int baseLevel) {
+        this(outer.localLevel, outer, baseLevel);
+    }
+
+    private ScopeTable(int localLevel, ScopeTable outer, int baseLevel) {
+        this.localLevel = localLevel;
+        this.outer = outer;
+        this.baseLevel = baseLevel;
+        heads = new Entry[64];
+        entered = new long[16];
+        enteredOutside = outer == null ? new long[0] : union(outer.entered, outer.enteredOutside);
+        log = new int[64];
+        logSize = 0;
+        scopeStarts = new int[8];
+        scopeCount = 0;
+    }
+
+    public void openScope() {
+        if (scopeCount == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, scopeCount * 2);
+        }
+        scopeStarts[scopeCount++] = logSize;
+    }
+
+    public void closeScope() {
+        int start = scopeStarts[--scopeCount];
+        while (logSize > start) {
+            int nameId = log[--logSize];
+            heads[nameId] = heads[nameId].next;
+        }
+    }
+
+    // index of the innermost open scope, 0 for the outermost
+    public int level() {
+        return baseLevel + scopeCount - 1;
+    }
+
+    // add decl to the innermost scope, hiding any declaration of the same name in enclosing scopes
+    public void enter(int nameId, Declaration decl) {
+        if (nameId >= heads.length) {
+            heads = Arrays.copyOf(heads, Math.max(nameId + 1, heads.length * 2));
+        }
+        if (logSize == log.length) {
+            log = Arrays.copyOf(log, logSize * 2);
+        }
+        Entry next = head(nameId);
+        int level = level();
+        int shallowestLocal;
+        if (next != null && next.shallowestLocal >= 0) {
+            shallowestLocal = next.shallowestLocal;
+        } else {
+            shallowestLocal = level >= localLevel ? level : -1;
+        }
+        heads[nameId] = new Entry(decl, level, shallowestLocal, next);
+        log[logSize++] = nameId;
+        int word = nameId >>> 6;
+        if (word >= entered.length) {
+            entered = Arrays.copyOf(entered, Math.max(word + 1, entered.length * 2));
+        }
+        entered[word] |= 1L << nameId;
+    }
+
+    // innermost visible declaration of the name, null if there is none
+    public Declaration search(int nameId) {
+        Entry head = head(nameId);
+        return head == null ? null : head.decl;
+    }
+
+    // scope index of the innermost visible declaration of the name, -1 if there is none
+    public int scopeLevel(int nameId) {
+        Entry head = head(nameId);
+        return head == null ? -1 : head.level;
+    }
+
+    // shallowest local scope declaring the name, -1 if no local scope declares it
+    public int shallowestLocalLevel(int nameId) {
+        Entry head = head(nameId);
+        return head == null ? -1 : head.shallowestLocal;
+    }
+
+    // declaration of the name in the given scope, null if that scope does not declare it
+    public Declaration searchLevel(int nameId, int level) {
+        for (Entry entry = head(nameId); entry != null && entry.level >= level; entry = entry.next) {
+            if (entry.level == level) {
+                return entry.decl;
+            }
+        }
+        return null;
+    }
+
+    private Entry head(int nameId) {
+        Entry head = nameId < heads.length ? heads[nameId] : null;
+        if (head == null && outer != null) {
+            int word = nameId >>> 6;
+            if (word < enteredOutside.length && (enteredOutside[word] & (1L << nameId)) != 0) {
+                return outer.head(nameId);
+            }
+        }
+        return head;
+    }
+
+    // outer tables do not change any more, so their names are taken over once
+    private static long[] union(long[] a, long[] b) {
+        long[] bits = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            bits[i] |= b[i];
+        }
+        return bits;
+    }
+}
@@ -1,7 +1,12 @@
 package miniJava.ContextualAnalyzer;
 
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import miniJava.AbstractSyntaxTrees.*;
 import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.DeferredErrorReporter;
 import miniJava.ErrorReporter;
 import miniJava.SyntacticAnalyzer.SourcePosition;
 import miniJava.SyntacticAnalyzer.Token;
@@ -10,10 +15,24 @@ public class TypeChecking implements Visitor<Object, Object> {
 
     private ErrorReporter reporter;
     private AST ast;
+    // array types of this compilation, shared with the checkers of single methods or classes it starts
+    final TypeUniverse types;
+
+    // check methods on the fork join pool, each one only reads declarations and writes its own expressions
+    private boolean parallel = false;
 
     public TypeChecking (AST ast, ErrorReporter reporter) {
+        this(ast, reporter, new TypeUniverse());
+    }
+
+    TypeChecking (AST ast, ErrorReporter reporter, TypeUniverse types) {
         this.reporter = reporter;
         this.ast = ast;
+        this.types = types;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
     }
 
     // typeError is used to trace error when identification fails
@@ -45,6 +64,10 @@ public class TypeChecking implements Visitor<Object, Object> {
 
     @Override
     public Object visitPackage(Package prog, Object arg) {
+        if (parallel) {
+            checkMethods(prog.classDeclList);
+            return null;
+        }
         for (ClassDecl cd : prog.classDeclList) {
             cd.visit(this, null);
         }
@@ -52,6 +75,67 @@ public class TypeChecking implements Visitor<Object, Object> {
     }
 
 
+    // the errors of every method are reported in source order, as if the methods had been checked one
+    // after another, and an exception stops the reports at the method that threw it
+    private void checkMethods(ClassDeclList classes) {
+        ArrayList<MethodDecl> methods = new ArrayList<MethodDecl>();
+        for (ClassDecl cd : classes) {
+            for (MethodDecl md : cd.methodDeclList) {
+                methods.add(md);
+            }
+        }
+        int count = methods.size();
+        // the tasks split ranges down to one method, so there must be at least one
+        if (count == 0) {
+            return;
+        }
+        DeferredErrorReporter[] errors = new DeferredErrorReporter[count];
+        RuntimeException[] failures = new RuntimeException[count];
+        ForkJoinPool.commonPool().invoke(new CheckMethods(methods, errors, failures, 0, count));
+        for (int i = 0; i < count; i++) {
+            errors[i].replay(reporter);
+            if (failures[i] != null) {
+                throw failures[i];
+            }
+        }
+    }
+
+    // checks the methods from low up to high, splitting the range in half until one method is left
+    private class CheckMethods extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private ArrayList<MethodDecl> methods;
+        private DeferredErrorReporter[] errors;
+        private RuntimeException[] failures;
+        private int low;
+        private int high;
+
+        CheckMethods(ArrayList<MethodDecl> methods, DeferredErrorReporter[] errors, RuntimeException[] failures,
+                     int low, int high) {
+            this.methods = methods;
+            this.errors = errors;
+            this.failures = failures;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low == 1) {
+                errors[low] = new DeferredErrorReporter();
+                try {
+                    methods.get(low).visit(new TypeChecking(null, errors[low], types), null);
+                } catch (RuntimeException e) {
+                    failures[low] = e;
+                }
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            invokeAll(new CheckMethods(methods, errors, failures, low, mid),
+                    new CheckMethods(methods, errors, failures, mid, high));
+        }
+    }
+
+
     // Declarations
 
     @Override
@@ -74,7 +158,12 @@ public class TypeChecking implements Visitor<Object, Object> {
         for (Statement st : md.statementList) {
             st.visit(this, null);
         }
+        checkMethodDecl(md);
+        return null;
+    }
 
+    // the checks on a method once its statements are checked
+    void checkMethodDecl(MethodDecl md) {
         if (md.type.typeKind == TypeKind.VOID) {
             for (int i = 0; i < md.statementList.size(); i++) {
                 if (md.statementList.get(i) instanceof ReturnStmt) {
@@ -92,21 +181,21 @@ public class TypeChecking implements Visitor<Object, Object> {
                         continue;
                     }
                     if ( ! (md.type.sameType( (returnStmt.returnExpr.typeAttribute) ) ) ) {
-                        System.out.println(md.type.typeKind);
-                        System.out.println(returnStmt.returnExpr.typeAttribute.typeKind);
+                        // printed through the reporter so a deferred reporter keeps them ahead of the error
+                        reporter.reportError(String.valueOf(md.type.typeKind));
+                        reporter.reportError(String.valueOf(returnStmt.returnExpr.typeAttribute.typeKind));
                         typeError("Return expression not the same type as non void method", md.statementList.get(i).posn);
                     }
                 }
             }
             if (md.statementList.size() == 0) {
                 typeError("Missing return expression in non void method", md.posn);
-                return null;
+                return;
             }
             if ( !(md.statementList.get(md.statementList.size() - 1) instanceof ReturnStmt) ) {
                 typeError("Last statement in non void method not a return statement", md.posn);
             }
         }
-        return null;
     }
     // todo: what are the implications of assigning classdecls a type of classtype
     // TODO: they can be compared with instances of classes and it will return true
@@ -154,7 +243,11 @@ public class TypeChecking implements Visitor<Object, Object> {
     @Override
     public Object visitVardeclStmt(VarDeclStmt stmt, Object arg) {
         stmt.initExp.visit(this, null);
+        checkVarDeclStmt(stmt);
+        return null;
+    }
 
+    void checkVarDeclStmt(VarDeclStmt stmt) {
         // initExp cannot point to a declaration of either class or method
         if (stmt.initExp instanceof RefExpr) {
             RefExpr refExpr = (RefExpr) stmt.initExp;
@@ -170,11 +263,18 @@ public class TypeChecking implements Visitor<Object, Object> {
         if ( !( stmt.varDecl.type.sameType(stmt.initExp.typeAttribute) ) ) {
             typeError("Expression does not match type of variable declaration", stmt.posn);
         }
-        return null;
     }
 
     @Override
     public Object visitAssignStmt(AssignStmt stmt, Object arg) {
+        checkAssignRef(stmt);
+        stmt.val.visit(this, null);
+        checkAssignValue(stmt);
+        return null;
+    }
+
+    // the checks on the reference assigned to, made before the value is checked
+    void checkAssignRef(AssignStmt stmt) {
         if (stmt.ref instanceof QualRef) {
             QualRef qualRef = (QualRef) stmt.ref;
             if (qualRef.id.decl.isArrayLength) {
@@ -188,9 +288,9 @@ public class TypeChecking implements Visitor<Object, Object> {
         if (stmt.ref.decl instanceof MethodDecl) {
             typeError("Illegal assignment to method reference", stmt.posn);
         }
+    }
 
-        stmt.val.visit(this, null);
-
+    void checkAssignValue(AssignStmt stmt) {
         // Value of assignStmt (expression) cannot point to a method declaration
         if (stmt.val instanceof RefExpr) {
             RefExpr refExpr = (RefExpr) stmt.val;
@@ -202,18 +302,24 @@ public class TypeChecking implements Visitor<Object, Object> {
         if ( !( stmt.ref.decl.type.sameType(stmt.val.typeAttribute) ) ) {
             typeError("Assigned expression does not match type of reference", stmt.posn);
         }
-        return null;
     }
 
     @Override
     public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
         stmt.ix.visit(this, null);
+        checkIndex(stmt);
+        stmt.exp.visit(this, null);
+        checkIxAssignStmt(stmt);
+        return null;
+    }
+
+    void checkIndex(IxAssignStmt stmt) {
         if ( !(stmt.ix.typeAttribute.typeKind == TypeKind.INT || stmt.ix.typeAttribute.typeKind == TypeKind.ERROR) ) {
             typeError("Size expression is not of type int in indexed array assignment statement", stmt.posn);
         }
+    }
 
-        stmt.exp.visit(this, null);
-
+    void checkIxAssignStmt(IxAssignStmt stmt) {
 //        if (stmt.ref.decl instanceof ClassDecl) {
 //            typeError("Illegal index into class reference", stmt.posn);
 //        }
@@ -223,13 +329,12 @@ public class TypeChecking implements Visitor<Object, Object> {
 
         if (stmt.ref.decl.type.typeKind != TypeKind.ARRAY) {
             typeError("Reference is not of type array", stmt.posn);
-            return null;
+            return;
         }
 
         if ( !( ( (ArrayType) (stmt.ref.decl.type) ).eltType.sameType(stmt.exp.typeAttribute) ) ) {
             typeError("Assigned expression does not match element type of array", stmt.posn);
         }
-        return null;
     }
 
     @Override
@@ -238,16 +343,20 @@ public class TypeChecking implements Visitor<Object, Object> {
         for (Expression expr : stmt.argList) {
             expr.visit(this, null);
         }
+        checkCallStmt(stmt);
+        return null;
+    }
 
+    void checkCallStmt(CallStmt stmt) {
         if ( !(stmt.methodRef.decl instanceof MethodDecl) ) {
             typeError("Method call in statement must point to method declaration", stmt.posn);
-            return null;
+            return;
         }
 
         MethodDecl methodDecl = (MethodDecl) stmt.methodRef.decl;
         if ( methodDecl.parameterDeclList.size() != stmt.argList.size() ) {
             typeError("Size of argument list does not match size of argument list of referenced method", stmt.posn);
-            return null;
+            return;
         }
 
         // compare referenced method parameter types to passed in parameters
@@ -255,10 +364,9 @@ public class TypeChecking implements Visitor<Object, Object> {
             TypeDenoter paramType = methodDecl.parameterDeclList.get(i).type;
             if (!paramType.sameType(stmt.argList.get(i).typeAttribute)) {
                 typeError("CallStmt has different argument type than referenced method", stmt.posn);
-                return null;
+                return;
             }
         }
-        return null;
     }
 
     @Override
@@ -272,9 +380,7 @@ public class TypeChecking implements Visitor<Object, Object> {
     @Override
     public Object visitIfStmt(IfStmt stmt, Object arg) {
         stmt.cond.visit(this, null);
-        if ( !(stmt.cond.typeAttribute.typeKind == TypeKind.BOOLEAN || stmt.cond.typeAttribute.typeKind == TypeKind.ERROR) ) {
-            typeError("Condition of if stmt is not of type boolean", stmt.posn);
-        }
+        checkCondition(stmt);
         stmt.thenStmt.visit(this, null);
         if (stmt.elseStmt != null) {
             stmt.elseStmt.visit(this, null);
@@ -282,14 +388,24 @@ public class TypeChecking implements Visitor<Object, Object> {
         return null;
     }
 
+    void checkCondition(IfStmt stmt) {
+        if ( !(stmt.cond.typeAttribute.typeKind == TypeKind.BOOLEAN || stmt.cond.typeAttribute.typeKind == TypeKind.ERROR) ) {
+            typeError("Condition of if stmt is not of type boolean", stmt.posn);
+        }
+    }
+
     @Override
     public Object visitWhileStmt(WhileStmt stmt, Object arg) {
         stmt.cond.visit(this, null);
+        checkCondition(stmt);
+        stmt.body.visit(this, null);
+        return null;
+    }
+
+    void checkCondition(WhileStmt stmt) {
         if ( !(stmt.cond.typeAttribute.typeKind == TypeKind.BOOLEAN || stmt.cond.typeAttribute.typeKind == TypeKind.ERROR) ) {
             typeError("Condition of while statement is not of type boolean", stmt.posn);
         }
-        stmt.body.visit(this, null);
-        return null;
     }
 
 
@@ -298,22 +414,26 @@ public class TypeChecking implements Visitor<Object, Object> {
     @Override
     public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
         expr.expr.visit(this, null);
+        checkUnaryExpr(expr);
+        return null;
+    }
+
+    void checkUnaryExpr(UnaryExpr expr) {
         if (expr.operator.kind == Token.TokenKind.NOT) {
             // logical negation can only be applied to booleans
-            expr.typeAttribute = new BaseType(TypeKind.BOOLEAN, null);
+            expr.typeAttribute = TypeUniverse.BOOLEAN;
             if ( !(expr.expr.typeAttribute.typeKind == TypeKind.BOOLEAN || expr.expr.typeAttribute.typeKind == TypeKind.ERROR) ) {
                 typeError("'!' (NOT) applied to non boolean expression", expr.posn);
-                expr.typeAttribute = new BaseType(TypeKind.ERROR, null);
+                expr.typeAttribute = TypeUniverse.ERROR;
             }
         } else if (expr.operator.kind == Token.TokenKind.MINUS) {
             // arithmetic negation can only be applied to integers
-            expr.typeAttribute = new BaseType(TypeKind.INT, null);
+            expr.typeAttribute = TypeUniverse.INT;
             if ( !(expr.expr.typeAttribute.typeKind == TypeKind.INT || expr.expr.typeAttribute.typeKind == TypeKind.ERROR) ) {
                 typeError("'-' (MINUS) applied to non integer expression", expr.posn);
-                expr.typeAttribute = new BaseType(TypeKind.ERROR, null);
+                expr.typeAttribute = TypeUniverse.ERROR;
             }
         }
-        return null;
     }
 
     @Override
@@ -321,10 +441,15 @@ public class TypeChecking implements Visitor<Object, Object> {
         expr.operator.visit(this, null);
         expr.left.visit(this, null);
         expr.right.visit(this, null);
+        checkBinaryExpr(expr);
+        return null;
+    }
+
+    void checkBinaryExpr(BinaryExpr expr) {
         if (!expr.left.typeAttribute.sameType(expr.right.typeAttribute)) {
             typeError("Unequal types on either side of binary expression", expr.posn);
-            expr.typeAttribute = new BaseType(TypeKind.ERROR, null);
-            return null;
+            expr.typeAttribute = TypeUniverse.ERROR;
+            return;
         }
 
         switch (expr.operator.kind) {
@@ -335,7 +460,7 @@ public class TypeChecking implements Visitor<Object, Object> {
             case LESS:
             case LESSEQUAL:
             case GREATEREQUAL:
-                expr.typeAttribute = new BaseType(TypeKind.BOOLEAN, null);
+                expr.typeAttribute = TypeUniverse.BOOLEAN;
                 if ( !(expr.left.typeAttribute.typeKind == TypeKind.INT || expr.left.typeAttribute.typeKind == TypeKind.ERROR) ) {
                     typeError("Non integer used with relational integer operator", expr.posn);
                 }
@@ -345,7 +470,7 @@ public class TypeChecking implements Visitor<Object, Object> {
             case MINUS:
             case MULT:
             case DIV:
-                expr.typeAttribute = new BaseType(TypeKind.INT, null);
+                expr.typeAttribute = TypeUniverse.INT;
                 if ( !(expr.left.typeAttribute.typeKind == TypeKind.INT || expr.left.typeAttribute.typeKind == TypeKind.ERROR) ) {
                     typeError("Non integer used with arithmetic integer operator", expr.posn);
                 }
@@ -354,7 +479,7 @@ public class TypeChecking implements Visitor<Object, Object> {
                 // strictly logical operators return a boolean and only operate on booleans
             case AND:
             case OR:
-                expr.typeAttribute = new BaseType(TypeKind.BOOLEAN, null);
+                expr.typeAttribute = TypeUniverse.BOOLEAN;
                 if ( !(expr.left.typeAttribute.typeKind == TypeKind.BOOLEAN || expr.left.typeAttribute.typeKind == TypeKind.ERROR)) {
                     typeError("Non boolean used with logical integer operator", expr.posn);
                 }
@@ -363,32 +488,44 @@ public class TypeChecking implements Visitor<Object, Object> {
                 // equality operators can operate on all types, type equality between sides checked above
             case EQUALS:
             case NOTEQUAL:
-                expr.typeAttribute = new BaseType(TypeKind.BOOLEAN, null);
+                expr.typeAttribute = TypeUniverse.BOOLEAN;
                 break;
 
         }
-        return null;
     }
 
     @Override
     public Object visitRefExpr(RefExpr expr, Object arg) {
-        expr.typeAttribute = expr.ref.decl.type;
+        checkRefExpr(expr);
         return null;
     }
 
+    void checkRefExpr(RefExpr expr) {
+        expr.typeAttribute = expr.ref.decl.type;
+    }
+
     @Override
     public Object visitIxExpr(IxExpr expr, Object arg) {
+        checkIxRef(expr);
+        expr.ixExpr.visit(this, null);
+        checkIndex(expr);
+        return null;
+    }
+
+    // the checks on the indexed reference, made before the index is checked
+    void checkIxRef(IxExpr expr) {
         if ( !(expr.ref.decl.type.typeKind == TypeKind.ARRAY || expr.ref.decl.type.typeKind == TypeKind.ERROR)) {
             typeError("Reference is not of type array", expr.posn);
-            expr.typeAttribute = new BaseType(TypeKind.ERROR, null);
+            expr.typeAttribute = TypeUniverse.ERROR;
         } else {
             expr.typeAttribute = ( (ArrayType)(expr.ref.decl.type) ).eltType;
         }
-        expr.ixExpr.visit(this, null);
+    }
+
+    void checkIndex(IxExpr expr) {
         if ( !(expr.ixExpr.typeAttribute.typeKind == TypeKind.INT || expr.ixExpr.typeAttribute.typeKind == TypeKind.ERROR) ){
             typeError("Size expression is not of type int in indexed array expression", expr.posn);
         }
-        return null;
     }
 
     @Override
@@ -397,19 +534,23 @@ public class TypeChecking implements Visitor<Object, Object> {
         for (Expression argument : expr.argList) {
             argument.visit(this, null);
         }
+        checkCallExpr(expr);
+        return null;
+    }
 
+    void checkCallExpr(CallExpr expr) {
         if (!(expr.functionRef.decl instanceof MethodDecl)) {
             typeError("Method call in expression must point to method declaration", expr.functionRef.posn);
-            expr.typeAttribute = new BaseType(TypeKind.ERROR, null);
-            return null;
+            expr.typeAttribute = TypeUniverse.ERROR;
+            return;
         }
 
         MethodDecl methodDecl = (MethodDecl) expr.functionRef.decl;
 
         if ( methodDecl.parameterDeclList.size() != expr.argList.size() ) {
             typeError("Size of argument list does not match size of argument list of referenced method", expr.posn);
-            expr.typeAttribute = new BaseType(TypeKind.ERROR, null);
-            return null;
+            expr.typeAttribute = TypeUniverse.ERROR;
+            return;
         }
 
         // compare referenced method parameter types to passed in parameters
@@ -417,46 +558,57 @@ public class TypeChecking implements Visitor<Object, Object> {
             TypeDenoter paramType = methodDecl.parameterDeclList.get(i).type;
             if ( !(paramType.sameType(expr.argList.get(i).typeAttribute)) ) {
                 typeError("CallExpr has different argument type than referenced method", expr.posn);
-                expr.typeAttribute = new BaseType(TypeKind.ERROR, null);
-                return null;
+                expr.typeAttribute = TypeUniverse.ERROR;
+                return;
             }
         }
 
         expr.typeAttribute = expr.functionRef.decl.type;
-        return null;
     }
 
     @Override
     public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
+        checkLiteralExpr(expr);
+        return null;
+    }
+
+    void checkLiteralExpr(LiteralExpr expr) {
         switch (expr.lit.kind) {
             case NUM:
-                expr.typeAttribute = new BaseType(TypeKind.INT, null);
+                expr.typeAttribute = TypeUniverse.INT;
                 break;
             case TRUE:
             case FALSE:
-                expr.typeAttribute = new BaseType(TypeKind.BOOLEAN, null);
+                expr.typeAttribute = TypeUniverse.BOOLEAN;
                 break;
             case NULL:
-                expr.typeAttribute = new BaseType(TypeKind.NULL, null);
+                expr.typeAttribute = TypeUniverse.NULL;
                 break;
         }
-        return null;
     }
 
     @Override
     public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
-        expr.typeAttribute = expr.classtype;
+        checkNewObjectExpr(expr);
         return null;
     }
 
+    void checkNewObjectExpr(NewObjectExpr expr) {
+        expr.typeAttribute = expr.classtype;
+    }
+
     @Override
     public Object visitNewArrayExpr(NewArrayExpr expr, Object arg) {
-        expr.typeAttribute = new ArrayType(expr.eltType, null);
         expr.sizeExpr.visit(this, null);
+        checkNewArrayExpr(expr);
+        return null;
+    }
+
+    void checkNewArrayExpr(NewArrayExpr expr) {
+        expr.typeAttribute = types.arrayOf(expr.eltType);
         if ( !(expr.sizeExpr.typeAttribute.typeKind == TypeKind.INT || expr.sizeExpr.typeAttribute.typeKind == TypeKind.ERROR) ){
             typeError("Size expression is not of type int in new array expression", expr.posn);
         }
-        return null;
     }
 
 
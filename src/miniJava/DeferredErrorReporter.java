@@ -0,0 +1,41 @@
+package miniJava;
+
+import java.util.ArrayList;
+
+// collects error messages instead of printing them, so they can be replayed later in a chosen order
+public class DeferredErrorReporter extends ErrorReporter {
+    private ArrayList<String> messages;
+
+    public DeferredErrorReporter() {
+        messages = new ArrayList<String>();
+    }
+
+    @Override
+    public boolean hasErrors() {
+        return messages.size() > 0;
+    }
+
+    @Override
+    public void reportError(String message) {
+        messages.add(message);
+    }
+
+    public int size() {
+        return messages.size();
+    }
+
+    public String get(int i) {
+        return messages.get(i);
+    }
+
+    public void clear() {
+        messages.clear();
+    }
+
+    // report every collected message to the given reporter, in the order they were collected
+    public void replay(ErrorReporter reporter) {
+        for (String message : messages) {
+            reporter.reportError(message);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package miniJava.IR;
+
+import java.util.ArrayList;
+
+// a sequence of instructions that is only entered at the top and only left at the bottom
+// the last instruction is the only one that can jump, return or halt, and a block that does not end
+// in an unconditional transfer falls through to the block after it in its graph
+public class BasicBlock {
+
+    // position in its graph, -1 until the block is placed
+    public int id;
+    public final ControlFlowGraph graph;
+    public final ArrayList<Instr> instrs;
+    public final ArrayList<BasicBlock> successors;
+    public final ArrayList<BasicBlock> predecessors;
+
+    // code address of the first instruction, set when the program is emitted
+    public int address;
+
+    public BasicBlock(ControlFlowGraph graph) {
+        this.id = -1;
+        this.graph = graph;
+        this.instrs = new ArrayList<Instr>();
+        this.successors = new ArrayList<BasicBlock>();
+        this.predecessors = new ArrayList<BasicBlock>();
+    }
+
+    public Instr last() {
+        return instrs.isEmpty() ? null : instrs.get(instrs.size() - 1);
+    }
+
+    void addSuccessor(BasicBlock block) {
+        if (!successors.contains(block)) {
+            successors.add(block);
+            block.predecessors.add(this);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package miniJava.IR;
+
+import java.util.ArrayList;
+
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+
+// the basic blocks of one method, or of the start up code that calls main, in the order they are
+// emitted, the first one is the entry
+public class ControlFlowGraph {
+
+    public final String name;
+    public final MethodDecl method;
+    public final ArrayList<BasicBlock> blocks;
+
+    public ControlFlowGraph(String name, MethodDecl method) {
+        this.name = name;
+        this.method = method;
+        this.blocks = new ArrayList<BasicBlock>();
+    }
+
+    public BasicBlock entry() {
+        return blocks.get(0);
+    }
+
+    // a block of this graph that jumps can already go to, it takes its place in the graph when placed
+    BasicBlock newBlock() {
+        return new BasicBlock(this);
+    }
+
+    // put the block after the last one placed, control falls through into it from there
+    void place(BasicBlock block) {
+        block.id = blocks.size();
+        blocks.add(block);
+    }
+
+    // drop the block, which must be empty, and number the blocks after it again
+    void remove(BasicBlock block) {
+        blocks.remove(block.id);
+        for (int i = block.id; i < blocks.size(); i++) {
+            blocks.get(i).id = i;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package miniJava.IR;
+
+import mJAM.Machine;
+import mJAM.Machine.Op;
+
+// writes the IR of a program to a fresh code store, every graph after the one before it and every
+// block of a graph in order, and fills in the code address of every jump and call from where the
+// block it refers to was placed
+public class IREmitter {
+
+    private static final Op[] OPS = Op.values();
+
+    private IRProgram program;
+
+    public IREmitter(IRProgram program) {
+        this.program = program;
+    }
+
+    public void emit() {
+        int next = 0;
+        for (ControlFlowGraph graph : program.graphs) {
+            for (BasicBlock block : graph.blocks) {
+                block.address = next;
+                next += block.instrs.size();
+            }
+        }
+
+        Machine.initCodeGen();
+        for (ControlFlowGraph graph : program.graphs) {
+            for (BasicBlock block : graph.blocks) {
+                for (Instr instr : block.instrs) {
+                    if (instr.target != null) {
+                        instr.d = instr.target.address;
+                    }
+                    instr.address = Machine.nextInstrAddr();
+                    Machine.emit(OPS[instr.op], instr.n, instr.r, instr.d);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,753 @@
+package miniJava.IR;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Stack;
+
+import mJAM.Machine;
+import mJAM.Machine.Op;
+import mJAM.Machine.Prim;
+import mJAM.Machine.Reg;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.CodeGenerator.CodeGenerator;
+import miniJava.CodeGenerator.RuntimeEntityDescription;
+import miniJava.ErrorReporter;
+import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.Token;
+
+// lowers the AST of a program to one control flow graph per method, plus one for the start up code
+// the instructions are the ones the CodeGenerator emits for the same tree under the same options, but
+// a jump goes to the block it was patched to there and a call to the entry of the method it calls, so
+// the IREmitter gives back the code the CodeGenerator would have generated
+// the program must have been laid out by the CodeGenerator first, which places the fields, checks
+// main and ends every method with a return
+public class IRLowering implements Visitor<Object, Object> {
+
+    private static final Op[] OPS = Op.values();
+
+    private final ErrorReporter reporter;
+    private Package prog;
+    private int staticFieldCount;
+
+    // the graph being lowered and the block its next instruction goes into, null after a block ended
+    private ControlFlowGraph graph;
+    private BasicBlock current;
+
+    // the graph of every method, created before any of them is lowered so calls can go forward
+    private HashMap<MethodDecl, ControlFlowGraph> graphs;
+
+    private int localsOffset;
+    private int localAllocationPopCount;
+    private int currMethodParamCount;
+
+    private boolean shortCircuit = false;
+    private boolean fuseBranches = false;
+
+    public IRLowering(Package prog, int staticFieldCount, ErrorReporter reporter) {
+        this.prog = prog;
+        this.staticFieldCount = staticFieldCount;
+        this.reporter = reporter;
+        this.graphs = new HashMap<MethodDecl, ControlFlowGraph>();
+    }
+
+    public void setShortCircuit(boolean shortCircuit) {
+        this.shortCircuit = shortCircuit;
+    }
+
+    public void setFuseBranches(boolean fuseBranches) {
+        this.fuseBranches = fuseBranches;
+    }
+
+    static class LoweringError extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private void lowerError(String e, SourcePosition sp) throws LoweringError {
+        reporter.reportError("*** line " + sp.getLineNumber() + ": Code generation error - " + e);
+        throw new LoweringError();
+    }
+
+    public IRProgram lower() {
+        IRProgram program = new IRProgram();
+        ControlFlowGraph start = new ControlFlowGraph("start", null);
+        program.graphs.add(start);
+        for (ClassDecl cd : prog.classDeclList) {
+            for (MethodDecl md : cd.methodDeclList) {
+                ControlFlowGraph methodGraph = new ControlFlowGraph(cd.name + "." + md.name, md);
+                methodGraph.place(methodGraph.newBlock());
+                graphs.put(md, methodGraph);
+                program.graphs.add(methodGraph);
+            }
+        }
+
+        // the start up code calls the first method generated, as the CodeGenerator does, or the end of
+        // the code when there are none
+        graph = start;
+        current = null;
+        emit(Op.PUSH, staticFieldCount);
+        emit(Op.LOADL, 0);
+        emit(Prim.newarr);
+        Instr mainCall = emit(Op.CALL, Reg.CB, 0);
+        emit(Op.HALT, 0, 0, 0);
+        mainCall.target = program.graphs.size() > 1 ? program.graphs.get(1).entry() : here();
+
+        prog.visit(this, null);
+
+        removeEmptyBlocks(program);
+        for (ControlFlowGraph g : program.graphs) {
+            link(g);
+        }
+        return program;
+    }
+
+    // an empty block starts where the block after it does, so what goes to it goes there instead
+    // only an empty block at the end of a graph that something goes to is kept, it is where control
+    // goes from the end of the graph, the start of the next one
+    private void removeEmptyBlocks(IRProgram program) {
+        HashMap<BasicBlock, BasicBlock> moved = new HashMap<BasicBlock, BasicBlock>();
+        for (ControlFlowGraph g : program.graphs) {
+            BasicBlock next = null;
+            for (int i = g.blocks.size() - 1; i >= 0; i--) {
+                BasicBlock block = g.blocks.get(i);
+                if (!block.instrs.isEmpty() || next == null) {
+                    next = block;
+                } else {
+                    moved.put(block, next);
+                }
+            }
+        }
+
+        HashMap<BasicBlock, Boolean> targets = new HashMap<BasicBlock, Boolean>();
+        for (ControlFlowGraph g : program.graphs) {
+            for (BasicBlock block : g.blocks) {
+                for (Instr instr : block.instrs) {
+                    if (instr.target != null) {
+                        BasicBlock target = moved.get(instr.target);
+                        if (target != null) {
+                            instr.target = target;
+                        }
+                        targets.put(instr.target, Boolean.TRUE);
+                    }
+                }
+            }
+        }
+
+        for (ControlFlowGraph g : program.graphs) {
+            ArrayList<BasicBlock> kept = new ArrayList<BasicBlock>();
+            for (BasicBlock block : g.blocks) {
+                if (!block.instrs.isEmpty() || (!moved.containsKey(block) && targets.containsKey(block))) {
+                    kept.add(block);
+                }
+            }
+            g.blocks.clear();
+            for (BasicBlock block : kept) {
+                g.place(block);
+            }
+        }
+    }
+
+    // the edges of the graph, from the jump that ends a block and from falling through to the next one
+    private static void link(ControlFlowGraph g) {
+        for (BasicBlock block : g.blocks) {
+            Instr instr = block.last();
+            boolean jump = instr != null && (instr.op == Op.JUMP.ordinal() || instr.op == Op.JUMPIF.ordinal());
+            if (jump && instr.target != null) {
+                block.addSuccessor(instr.target);
+            }
+            boolean fallsThrough = instr == null || !(instr.op == Op.JUMP.ordinal() || instr.op == Op.JUMPI.ordinal()
+                    || instr.op == Op.RETURN.ordinal() || instr.op == Op.HALT.ordinal());
+            if (fallsThrough && block.id + 1 < g.blocks.size()) {
+                block.addSuccessor(g.blocks.get(block.id + 1));
+            }
+        }
+    }
+
+    // the instruction goes at the end of the current block, or starts a new one after a block ended
+    private Instr emit(int op, int n, int r, int d) {
+        if (current == null) {
+            current = graph.newBlock();
+            graph.place(current);
+        }
+        Instr instr = new Instr(op, n, r, d);
+        current.instrs.add(instr);
+        Op kind = OPS[op];
+        if (kind == Op.JUMP || kind == Op.JUMPI || kind == Op.JUMPIF || kind == Op.RETURN || kind == Op.HALT) {
+            current = null;
+        }
+        return instr;
+    }
+
+    // the same instructions as the Machine.emit overloads the CodeGenerator uses
+
+    private Instr emit(Op op, int n, Reg r, int d) {
+        return emit(op.ordinal(), n, r.ordinal(), d);
+    }
+
+    private Instr emit(Prim d) {
+        return emit(Op.CALL, Reg.PB, d.ordinal());
+    }
+
+    private Instr emit(Op op, Reg r, int d) {
+        return emit(op.ordinal(), 0, r.ordinal(), d);
+    }
+
+    private Instr emit(Op op, int d) {
+        return emit(op.ordinal(), 0, 0, d);
+    }
+
+    private Instr emit(Op op, int n, int r, int d) {
+        return emit(op.ordinal(), n, r, d);
+    }
+
+    // a new block where the next instruction goes, for the jumps that go there
+    private BasicBlock here() {
+        current = graph.newBlock();
+        graph.place(current);
+        return current;
+    }
+
+    private Instr call(Op op, MethodDecl md) {
+        Instr instr = emit(op, Reg.CB, 0);
+        instr.target = graphs.get(md).entry();
+        return instr;
+    }
+
+    @Override
+    public Object visitPackage(Package prog, Object arg) {
+        for (ClassDecl c : prog.classDeclList)
+            c.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitClassDecl(ClassDecl cd, Object arg) {
+        for (FieldDecl f : cd.fieldDeclList)
+            f.visit(this, null);
+        for (MethodDecl m : cd.methodDeclList)
+            m.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitFieldDecl(FieldDecl fd, Object arg) {
+        fd.type.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitMethodDecl(MethodDecl md, Object arg) {
+        localsOffset = 3;
+        currMethodParamCount = md.parameterDeclList.size();
+
+        md.type.visit(this, null);
+
+        int parameterOffsetStart = -md.parameterDeclList.size();
+        for (ParameterDecl p : md.parameterDeclList) {
+            p.visit(this, null);
+            p.rED = new RuntimeEntityDescription(parameterOffsetStart++);
+        }
+
+        // the address is only known once the program is emitted, but a method that has been lowered
+        // has a runtime entity as it does in the CodeGenerator
+        md.rED = new RuntimeEntityDescription(-1);
+        graph = graphs.get(md);
+        current = graph.entry();
+
+        for (Statement statement : md.statementList) {
+            statement.visit(this, null);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitParameterDecl(ParameterDecl pd, Object arg) {
+        pd.type.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitVarDecl(VarDecl decl, Object arg) {
+        decl.rED = new RuntimeEntityDescription(localsOffset++);
+        decl.type.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitBaseType(BaseType type, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitClassType(ClassType type, Object arg) {
+        type.className.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitArrayType(ArrayType type, Object arg) {
+        type.eltType.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitBlockStmt(BlockStmt stmt, Object arg) {
+        int enclosingPopCount = this.localAllocationPopCount;
+        this.localAllocationPopCount = 0;
+        for (Statement statement : stmt.sl)
+            statement.visit(this, null);
+        if (this.localAllocationPopCount > 0) {
+            this.localsOffset -= this.localAllocationPopCount;
+            emit(Op.POP, this.localAllocationPopCount);
+        }
+        this.localAllocationPopCount = enclosingPopCount;
+        return null;
+    }
+
+    @Override
+    public Object visitVardeclStmt(VarDeclStmt stmt, Object arg) {
+        this.localAllocationPopCount++;
+        stmt.varDecl.visit(this, null);
+        stmt.initExp.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitAssignStmt(AssignStmt stmt, Object arg) {
+        if (stmt.ref.decl.isStaticFieldRef) {
+            stmt.val.visit(this, null);
+            emit(Op.STORE, Reg.SB, stmt.ref.decl.rED.displacement);
+
+        } else if (stmt.ref instanceof IdRef) {
+            IdRef idRef = (IdRef) stmt.ref;
+
+            if (idRef.decl instanceof FieldDecl) {
+                emit(Op.LOADA, Reg.OB, 0);
+                emit(Op.LOADL, idRef.id.decl.rED.displacement);
+                stmt.val.visit(this, null);
+                emit(Prim.fieldupd);
+
+            } else {
+                stmt.val.visit(this, null);
+                storeIdRef(idRef);
+            }
+
+        } else if (stmt.ref instanceof QualRef) {
+            QualRef qualRef = (QualRef) stmt.ref;
+            pushQRefInfo(qualRef);
+            stmt.val.visit(this, null);
+            emit(Prim.fieldupd);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
+        stmt.ref.visit(this, null);
+        stmt.ix.visit(this, null);
+        stmt.exp.visit(this, null);
+        emit(Prim.arrayupd);
+        return null;
+    }
+
+    @Override
+    public Object visitCallStmt(CallStmt stmt, Object arg) {
+        for (Expression argument : stmt.argList) {
+            argument.visit(this, null);
+        }
+
+        if (stmt.methodRef.decl.isPrintLn) {
+            emit(Prim.putintnl);
+            return null;
+        }
+
+        MethodDecl methodDecl = (MethodDecl) stmt.methodRef.decl;
+
+        if (methodDecl.isStatic) {
+            call(Op.CALL, methodDecl);
+        } else {
+            stmt.methodRef.visit(this, null);
+            if (stmt.methodRef instanceof QualRef) {
+                QualRef qualRef = (QualRef) stmt.methodRef;
+                Reference callingObject = qualRef.ref;
+                callingObject.visit(this, null);
+            } else {
+                emit(Op.LOADA, Reg.OB, 0);
+            }
+            call(Op.CALLI, methodDecl);
+        }
+
+        if (stmt.methodRef.decl.type.typeKind != TypeKind.VOID) {
+            emit(Op.POP, 1);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitReturnStmt(ReturnStmt stmt, Object arg) {
+        int resultSize = 0;
+        if (stmt.returnExpr != null) {
+            stmt.returnExpr.visit(this, null);
+            resultSize = 1;
+        }
+
+        emit(Op.RETURN, resultSize, 0, currMethodParamCount);
+        return null;
+    }
+
+    @Override
+    public Object visitIfStmt(IfStmt stmt, Object arg) {
+        ArrayList<Instr> elseJumps = jumpIf(stmt.cond, Machine.falseRep);
+
+        stmt.thenStmt.visit(this, null);
+
+        Instr endJump = emit(Op.JUMP, 0, Reg.CB, 0);
+        patchJumps(elseJumps, here());
+
+        if (stmt.elseStmt != null) {
+            stmt.elseStmt.visit(this, null);
+        }
+
+        endJump.target = here();
+
+        return null;
+    }
+
+    @Override
+    public Object visitWhileStmt(WhileStmt stmt, Object arg) {
+        Instr baseJump = emit(Op.JUMP, 0, Reg.CB, 0);
+        BasicBlock body = here();
+
+        stmt.body.visit(this, null);
+
+        baseJump.target = here();
+
+        patchJumps(jumpIf(stmt.cond, Machine.trueRep), body);
+
+        return null;
+    }
+
+    // lower code that jumps when the condition evaluates to value and falls through otherwise, and
+    // return the jumps so the caller can send them to their block
+    private ArrayList<Instr> jumpIf(Expression cond, int value) {
+        ArrayList<Instr> jumps = new ArrayList<Instr>();
+        jumpIf(cond, value, jumps);
+        return jumps;
+    }
+
+    private void jumpIf(Expression cond, int value, ArrayList<Instr> jumps) {
+        if ((shortCircuit || fuseBranches) && CodeGenerator.isShortCircuit(cond)) {
+            BinaryExpr expr = (BinaryExpr) cond;
+            int decidingValue = CodeGenerator.decidingValue(expr);
+            if (value == decidingValue) {
+                jumpIf(expr.left, value, jumps);
+                jumpIf(expr.right, value, jumps);
+            } else {
+                ArrayList<Instr> skipJumps = jumpIf(expr.left, decidingValue);
+                jumpIf(expr.right, value, jumps);
+                patchJumps(skipJumps, here());
+            }
+            return;
+        }
+        if (fuseBranches && cond instanceof UnaryExpr && ((UnaryExpr) cond).operator.kind == Token.TokenKind.NOT) {
+            jumpIf(((UnaryExpr) cond).expr, value == Machine.trueRep ? Machine.falseRep : Machine.trueRep, jumps);
+            return;
+        }
+        if (fuseBranches && CodeGenerator.isEquality(cond)) {
+            BinaryExpr expr = (BinaryExpr) cond;
+            Integer literal = CodeGenerator.jumpIfValue(expr.right);
+            Expression operand = expr.left;
+            if (literal == null) {
+                literal = CodeGenerator.jumpIfValue(expr.left);
+                operand = expr.right;
+            }
+            if (literal != null) {
+                operand.visit(this, null);
+                boolean jumpOnEqual = (expr.operator.kind == Token.TokenKind.EQUALS) == (value == Machine.trueRep);
+                if (jumpOnEqual) {
+                    jumps.add(emit(Op.JUMPIF, literal, Reg.CB, 0));
+                } else {
+                    Instr skipJump = emit(Op.JUMPIF, literal, Reg.CB, 0);
+                    jumps.add(emit(Op.JUMP, 0, Reg.CB, 0));
+                    skipJump.target = here();
+                }
+                return;
+            }
+        }
+        cond.visit(this, null);
+        jumps.add(emit(Op.JUMPIF, value, Reg.CB, 0));
+    }
+
+    private static void patchJumps(ArrayList<Instr> jumps, BasicBlock target) {
+        for (Instr jump : jumps) {
+            jump.target = target;
+        }
+    }
+
+    @Override
+    public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
+        if (expr.operator.kind == Token.TokenKind.MINUS) {
+            // unary -x is 0-x, as visitOperator cannot tell unary from binary minus
+            emit(Op.LOADL, 0);
+        }
+        expr.expr.visit(this, null);
+        expr.operator.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitBinaryExpr(BinaryExpr expr, Object arg) {
+        if (shortCircuit && CodeGenerator.isShortCircuit(expr)) {
+            int decidingValue = CodeGenerator.decidingValue(expr);
+            ArrayList<Instr> decidedJumps = jumpIf(expr.left, decidingValue);
+            expr.right.visit(this, null);
+            Instr endJump = emit(Op.JUMP, 0, Reg.CB, 0);
+            patchJumps(decidedJumps, here());
+            emit(Op.LOADL, decidingValue);
+            endJump.target = here();
+            return null;
+        }
+
+        expr.left.visit(this, null);
+        expr.right.visit(this, null);
+        expr.operator.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitRefExpr(RefExpr expr, Object arg) {
+        if (expr.ref.decl.isStaticFieldRef) {
+            emit(Op.LOAD, Reg.SB, expr.ref.decl.rED.displacement);
+        } else {
+            expr.ref.visit(this, null);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitIxExpr(IxExpr expr, Object arg) {
+        expr.ref.visit(this, null);
+        expr.ixExpr.visit(this, null);
+        emit(Prim.arrayref);
+        return null;
+    }
+
+    @Override
+    public Object visitCallExpr(CallExpr expr, Object arg) {
+        for (Expression argument : expr.argList) {
+            argument.visit(this, null);
+        }
+
+        if (expr.functionRef.decl.isPrintLn) {
+            return null;
+        }
+
+        expr.functionRef.visit(this, null);
+        MethodDecl methodDecl = (MethodDecl) expr.functionRef.decl;
+
+        if (methodDecl.isStatic) {
+            call(Op.CALL, methodDecl);
+        } else {
+            if (expr.functionRef instanceof QualRef) {
+                QualRef qualRef = (QualRef) expr.functionRef;
+                qualRef.ref.visit(this, null);
+            } else {
+                emit(Op.LOADA, Reg.OB, 0);
+            }
+            call(Op.CALLI, methodDecl);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
+        expr.lit.visit(this, null);
+        return null;
+    }
+
+    @Override
+    public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
+        emit(Op.LOADL, -1);
+        emit(Op.LOADL, expr.classtype.className.decl.rED.displacement);
+        emit(Prim.newobj);
+        return null;
+    }
+
+    @Override
+    public Object visitNewArrayExpr(NewArrayExpr expr, Object arg) {
+        expr.sizeExpr.visit(this, null);
+        emit(Prim.newarr);
+        return null;
+    }
+
+
+    // References
+
+    @Override
+    public Object visitThisRef(ThisRef ref, Object arg) {
+        emit(Op.LOADA, Reg.OB, 0);
+        return null;
+    }
+
+    @Override
+    public Object visitIdRef(IdRef ref, Object arg) {
+        pushIdRef(ref);
+        return null;
+    }
+
+    private void pushIdRef(IdRef ref) {
+        if (ref.decl instanceof FieldDecl) {
+            FieldDecl fieldDecl = (FieldDecl) ref.decl;
+            if (fieldDecl.isStatic) {
+                emit(Op.LOAD, Reg.SB, ref.id.decl.rED.displacement);
+            } else {
+                emit(Op.LOAD, Reg.OB, ref.id.decl.rED.displacement);
+            }
+        } else if (ref.id.decl.rED != null) {
+            if (ref.id.decl.isStaticFieldRef) {
+                emit(Op.LOAD, Reg.SB, ref.id.decl.rED.displacement);
+            } else if ( !(ref.id.decl instanceof MethodDecl) ) {
+                emit(Op.LOAD, Reg.LB, ref.id.decl.rED.displacement);
+            }
+        }
+    }
+
+    private void storeIdRef(IdRef ref) {
+        if (ref.decl instanceof FieldDecl) {
+            FieldDecl fieldDecl = (FieldDecl) ref.decl;
+            if (fieldDecl.isStatic) {
+                emit(Op.STORE, Reg.SB, ref.id.decl.rED.displacement);
+            }
+        } else {
+            if (ref.id.decl.isStaticFieldRef) {
+                emit(Op.STORE, Reg.SB, ref.id.decl.rED.displacement);
+            } else {
+                emit(Op.STORE, Reg.LB, ref.id.decl.rED.displacement);
+            }
+        }
+    }
+
+    @Override
+    public Object visitQRef(QualRef ref, Object arg) {
+        if (ref.id.decl.isArrayLength) {
+            pushIdRef((IdRef) ref.ref);
+            emit(Prim.arraylen);
+        } else if (ref.id.decl.rED != null) {
+            pushQRefInfo(ref);
+            emit(Prim.fieldref);
+        }
+        return null;
+    }
+
+    private void pushQRefInfo(QualRef qualRef) {
+        if (qualRef.id.decl.rED == null) {
+            return;
+        }
+        // the displacement of a method is its code address, which the CodeGenerator pushes as it does a
+        // field's, here the load goes to the method's entry and gets the address when it is emitted
+        BasicBlock methodEntry = null;
+        if (qualRef.id.decl instanceof MethodDecl) {
+            methodEntry = graphs.get((MethodDecl) qualRef.id.decl).entry();
+        }
+
+        Stack<Integer> fieldDisplacementStack = new Stack<Integer>();
+
+        fieldDisplacementStack.push(qualRef.id.decl.rED.displacement);
+        while (qualRef.ref instanceof QualRef) {
+            qualRef = (QualRef) qualRef.ref;
+            fieldDisplacementStack.push(qualRef.decl.rED.displacement);
+        }
+
+        qualRef.ref.visit(this, null);
+
+        int stackSize = fieldDisplacementStack.size();
+        for (int i = 0; i < stackSize; i++) {
+            int fieldDisplacement = fieldDisplacementStack.pop();
+            Instr load = emit(Op.LOADL, fieldDisplacement);
+            if (i == stackSize - 1) {
+                load.target = methodEntry;
+            }
+            if (i < stackSize - 1) {
+                emit(Prim.fieldref);
+            }
+        }
+    }
+
+    @Override
+    public Object visitIdentifier(Identifier id, Object arg) {
+        return null;
+    }
+
+    @Override
+    public Object visitOperator(Operator op, Object arg) {
+        switch (op.kind) {
+            case GREATER:
+                emit(Prim.gt);
+                break;
+            case LESS:
+                emit(Prim.lt);
+                break;
+            case EQUALS:
+                emit(Prim.eq);
+                break;
+            case LESSEQUAL:
+                emit(Prim.le);
+                break;
+            case GREATEREQUAL:
+                emit(Prim.ge);
+                break;
+            case NOTEQUAL:
+                emit(Prim.ne);
+                break;
+            case AND:
+                emit(Prim.and);
+                break;
+            case OR:
+                emit(Prim.or);
+                break;
+            case NOT:
+                emit(Prim.not);
+                break;
+            case PLUS:
+                emit(Prim.add);
+                break;
+            case MINUS:
+                emit(Prim.sub);
+                break;
+            case MULT:
+                emit(Prim.mult);
+                break;
+            case DIV:
+                emit(Prim.div);
+                break;
+            default:
+                lowerError("Unknown operator " + op.kind, op.posn);
+                break;
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitIntLiteral(IntLiteral num, Object arg) {
+        emit(Op.LOADL, num.value());
+        return null;
+    }
+
+    @Override
+    public Object visitBooleanLiteral(BooleanLiteral bool, Object arg) {
+        if (bool.spelling.equals("true")) {
+            emit(Op.LOADL, Machine.trueRep);
+        } else if (bool.spelling.equals("false")) {
+            emit(Op.LOADL, Machine.falseRep);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitNullLiteral(NullLiteral nullLiteral, Object arg) {
+        emit(Op.LOADL, Machine.nullRep);
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package miniJava.IR;
+
+import java.io.PrintWriter;
+
+import mJAM.Machine.Op;
+import mJAM.Machine.Prim;
+import mJAM.Machine.Reg;
+
+// the text form of the IR, one graph after another, for example
+//
+// Main.main
+//   B0: out B1 B2
+//     LOAD 3[LB]
+//     JUMPIF(0) B2
+//   B1: in B0 out B2
+//     CALL Main.f
+//
+// a block lists the blocks control comes in from and goes out to, a jump names the block it goes to,
+// prefixed with its graph when that is another one, a call names the graph it calls, as does a load of
+// a method's code address, and a call of a primitive the primitive
+public class IRPrinter {
+
+    private static final Op[] OPS = Op.values();
+    private static final Reg[] REGS = Reg.values();
+    private static final Prim[] PRIMS = Prim.values();
+
+    private PrintWriter out;
+
+    public IRPrinter(PrintWriter out) {
+        this.out = out;
+    }
+
+    public void print(IRProgram program) {
+        for (ControlFlowGraph graph : program.graphs) {
+            out.println(graph.name);
+            for (BasicBlock block : graph.blocks) {
+                StringBuilder header = new StringBuilder("  B" + block.id + ":");
+                if (!block.predecessors.isEmpty()) {
+                    header.append(" in");
+                    for (BasicBlock predecessor : block.predecessors) {
+                        header.append(' ').append(blockName(predecessor, graph));
+                    }
+                }
+                if (!block.successors.isEmpty()) {
+                    header.append(" out");
+                    for (BasicBlock successor : block.successors) {
+                        header.append(' ').append(blockName(successor, graph));
+                    }
+                }
+                out.println(header);
+                for (Instr instr : block.instrs) {
+                    out.println("    " + instrText(instr, graph));
+                }
+            }
+            out.println();
+        }
+        out.flush();
+    }
+
+    private static String blockName(BasicBlock block, ControlFlowGraph graph) {
+        return block.graph == graph ? "B" + block.id : block.graph.name + ":B" + block.id;
+    }
+
+    private static String instrText(Instr instr, ControlFlowGraph graph) {
+        Op op = OPS[instr.op];
+        String text = op.name();
+        if (op == Op.JUMPIF || op == Op.RETURN || instr.n != 0) {
+            text += "(" + instr.n + ")";
+        }
+        if (op == Op.HALT) {
+            return text;
+        }
+        if (instr.target != null) {
+            boolean jump = op == Op.JUMP || op == Op.JUMPIF;
+            if (!jump && instr.target == instr.target.graph.entry()) {
+                return text + " " + instr.target.graph.name;
+            }
+            return text + " " + blockName(instr.target, graph);
+        }
+        if (op == Op.CALL && REGS[instr.r] == Reg.PB && instr.d >= 0 && instr.d < PRIMS.length) {
+            return text + " " + PRIMS[instr.d].name();
+        }
+        if (instr.r != Reg.ZR.ordinal()) {
+            return text + " " + instr.d + "[" + REGS[instr.r].name() + "]";
+        }
+        return text + " " + instr.d;
+    }
+}
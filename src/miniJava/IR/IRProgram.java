@@ -0,0 +1,14 @@
+package miniJava.IR;
+
+import java.util.ArrayList;
+
+// the control flow graphs of a whole program in the order they are emitted, starting with the
+// start up code
+public class IRProgram {
+
+    public final ArrayList<ControlFlowGraph> graphs;
+
+    public IRProgram() {
+        this.graphs = new ArrayList<ControlFlowGraph>();
+    }
+}
@@ -0,0 +1,26 @@
+package miniJava.IR;
+
+// one mJAM instruction in a basic block
+// a jump or a call within the code store goes to a block instead of an address, and gets its
+// displacement from where that block is placed when the program is emitted
+public class Instr {
+
+    public int op;
+    public int n;
+    public int r;
+    public int d;
+
+    // the block a code address refers to, null for every other instruction
+    public BasicBlock target;
+
+    // code address of the instruction, set when the program is emitted
+    public int address;
+
+    public Instr(int op, int n, int r, int d) {
+        this.op = op;
+        this.n = n;
+        this.r = r;
+        this.d = d;
+        this.address = -1;
+    }
+}
@@ -0,0 +1,69 @@
+package miniJava;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// table of every distinct name spelling seen by one compilation, each is given a dense int id
+// names are compared and hashed by id from parsing through code generation
+// each compilation has a table of its own, which is safe to use from the threads of that compilation
+public class NameTable {
+
+    // names the compiler refers to itself, every table hands them out first so they have the same ids in every run
+    public static final int SYSTEM = 0;
+    public static final int PRINTSTREAM = 1;
+    public static final int STRING = 2;
+    public static final int OUT = 3;
+    public static final int PRINTLN = 4;
+    public static final int LENGTH = 5;
+    public static final int MAIN = 6;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private volatile String[] spellings = new String[1024];
+    private int count = 0;
+
+    public NameTable() {
+        id("System");
+        id("_PrintStream");
+        id("String");
+        id("out");
+        id("println");
+        id("length");
+        id("main");
+    }
+
+    // id of the given spelling, a new id is assigned the first time a spelling is seen
+    public int id(String spelling) {
+        Integer id = ids.get(spelling);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(spelling);
+            if (id != null) {
+                return id;
+            }
+            if (count == spellings.length) {
+                spellings = Arrays.copyOf(spellings, count * 2);
+            }
+            spellings[count] = spelling;
+            id = count++;
+            ids.put(spelling, id);
+            return id;
+        }
+    }
+
+    // id of the given spelling, or -1 if it has never been seen
+    public int find(String spelling) {
+        Integer id = ids.get(spelling);
+        return id == null ? -1 : id;
+    }
+
+    public String spelling(int id) {
+        return spellings[id];
+    }
+
+    // one more than the largest id handed out so far
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,55 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+// reads characters straight out of a ByteBuffer, normally a read only mapping of the whole input file
+public class ByteBufferCharSource implements CharSource {
+
+    private ByteBuffer buffer;
+
+    public ByteBufferCharSource(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    // whole contents of a file, mapped when it is large and read onto the heap otherwise
+    public static ByteBuffer load(String fileName) throws IOException {
+        File file = new File(fileName);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(fileName);
+        }
+        if (file.length() >= MAP_THRESHOLD) {
+            return mapFile(file);
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    }
+
+    // map the file into memory, the mapping stays valid after the channel is closed
+    private static ByteBuffer mapFile(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int read() {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,32 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+// sequential source of input characters for the Scanner
+// read() returns the next character, or -1 once the end of the input has been reached
+public interface CharSource {
+
+    // files at least this large are memory mapped instead of read onto the heap
+    long MAP_THRESHOLD = 1 << 20;
+
+    int read() throws IOException;
+
+    void close() throws IOException;
+
+    // open a file for scanning, picking the cheapest source for its size
+    // files that fit in a ByteBuffer are scanned from one so the Scanner can search it directly
+    static CharSource open(String fileName) throws IOException {
+        File file = new File(fileName);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(fileName);
+        }
+        if (file.length() <= Integer.MAX_VALUE) {
+            return new ByteBufferCharSource(ByteBufferCharSource.load(fileName));
+        }
+        // a ByteBuffer cannot index past 2 GB, so only larger files are streamed
+        return new StreamCharSource(new FileInputStream(file));
+    }
+}
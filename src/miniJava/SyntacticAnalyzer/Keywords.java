@@ -0,0 +1,62 @@
+package miniJava.SyntacticAnalyzer;
+
+// classifies a scanned word as a keyword or ID without building a String
+// candidates are found by word length and first letter, then compared character by character
+public class Keywords {
+
+    private static final int MAX_LENGTH;
+    private static final Token.TokenKind[][][] table;
+
+    static {
+        int maxLength = 0;
+        for (Token.TokenKind kind : Token.TokenKind.values()) {
+            if (kind.isKeyword()) {
+                maxLength = Math.max(maxLength, kind.spelling.length());
+            }
+        }
+        MAX_LENGTH = maxLength;
+        table = new Token.TokenKind[MAX_LENGTH + 1][26][];
+        for (Token.TokenKind kind : Token.TokenKind.values()) {
+            if (kind.isKeyword()) {
+                // keywords are all lower case
+                int first = kind.spelling.charAt(0) - 'a';
+                Token.TokenKind[] old = table[kind.spelling.length()][first];
+                Token.TokenKind[] candidates;
+                if (old == null) {
+                    candidates = new Token.TokenKind[1];
+                } else {
+                    candidates = new Token.TokenKind[old.length + 1];
+                    System.arraycopy(old, 0, candidates, 0, old.length);
+                }
+                candidates[candidates.length - 1] = kind;
+                table[kind.spelling.length()][first] = candidates;
+            }
+        }
+    }
+
+    // returns the keyword spelled by chars[0 .. length-1], or ID if it is not a keyword
+    public static Token.TokenKind classify(char[] chars, int length) {
+        if (length > MAX_LENGTH) {
+            return Token.TokenKind.ID;
+        }
+        int first = chars[0] - 'a';
+        if (first < 0 || first >= 26) {
+            return Token.TokenKind.ID;
+        }
+        Token.TokenKind[] candidates = table[length][first];
+        if (candidates == null) {
+            return Token.TokenKind.ID;
+        }
+        for (Token.TokenKind kind : candidates) {
+            String spelling = kind.spelling;
+            int i = 1;
+            while (i < length && spelling.charAt(i) == chars[i]) {
+                i++;
+            }
+            if (i == length) {
+                return kind;
+            }
+        }
+        return Token.TokenKind.ID;
+    }
+}
@@ -0,0 +1,79 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// line numbers for offsets into a source buffer, computed on demand
+// newline offsets are indexed only as far as the furthest offset asked about
+public class LineIndex {
+
+    private ByteBuffer buffer;
+    // line of the character at the buffer's position
+    private int firstLine;
+    private int[] newlines;
+    private int count;
+    // every newline before this offset is in the index
+    private int indexed;
+
+    // last answer, most lookups move forward from it
+    private int lastOffset;
+    private int lastLine;
+
+    public LineIndex(ByteBuffer buffer) {
+        this(buffer, 1);
+    }
+
+    public LineIndex(ByteBuffer buffer, int firstLine) {
+        this.buffer = buffer;
+        this.firstLine = firstLine;
+        this.newlines = new int[256];
+        this.count = 0;
+        this.indexed = buffer.position();
+        this.lastOffset = buffer.position();
+        this.lastLine = firstLine;
+    }
+
+    // line of the character at the given offset: the first line plus the number of newlines before it
+    public synchronized int lineOf(int offset) {
+        if (offset > indexed) {
+            extend(Math.min(offset, buffer.limit()));
+        }
+        int line;
+        if (offset >= lastOffset) {
+            int before = lastLine - firstLine;
+            while (before < count && newlines[before] < offset) {
+                before++;
+            }
+            line = firstLine + before;
+        } else {
+            // newlines before offset, found by binary search
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (newlines[mid] < offset) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            line = firstLine + low;
+        }
+        lastOffset = offset;
+        lastLine = line;
+        return line;
+    }
+
+    private void extend(int offset) {
+        ByteBuffer buffer = this.buffer;
+        for (int i = indexed; i < offset; i++) {
+            if (buffer.get(i) == '\n') {
+                if (count == newlines.length) {
+                    newlines = Arrays.copyOf(newlines, count * 2);
+                }
+                newlines[count++] = i;
+            }
+        }
+        indexed = offset;
+    }
+}
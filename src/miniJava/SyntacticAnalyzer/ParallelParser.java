@@ -0,0 +1,197 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.ClassDeclList;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.DeferredErrorReporter;
+import miniJava.ErrorReporter;
+import miniJava.NameTable;
+
+// parses the classes of a program in parallel
+// a pre-pass over the buffer matches braces, skipping comments, to find where each class starts and ends,
+// then every class is scanned and parsed on its own on the fork join pool
+// if any class has an error, or the pre-pass finds anything unusual, the whole input is parsed again
+// sequentially, so errors are always reported exactly as the Parser reports them
+public class ParallelParser {
+
+    private ByteBuffer buffer;
+    private ErrorReporter reporter;
+    // one table for the whole program, shared by the scanners of every class
+    private NameTable names;
+    private boolean referenceScanner;
+    private boolean recursiveExpressions;
+    private boolean compactAst;
+
+    // offsets of the first character and one past the closing brace of each class, and the line it starts on
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+    private int count;
+
+    private ClassDecl[] classes;
+
+    public ParallelParser(ByteBuffer buffer, ErrorReporter reporter, boolean referenceScanner, NameTable names) {
+        this.buffer = buffer;
+        this.reporter = reporter;
+        this.names = names;
+        this.referenceScanner = referenceScanner;
+        this.starts = new int[16];
+        this.ends = new int[16];
+        this.lines = new int[16];
+        this.count = 0;
+    }
+
+    public void setRecursiveExpressions(boolean recursiveExpressions) {
+        this.recursiveExpressions = recursiveExpressions;
+    }
+
+    public void setCompactAst(boolean compactAst) {
+        this.compactAst = compactAst;
+    }
+
+    public Package parse() {
+        // a single class gains nothing from the pool
+        if (findClasses() && count > 1) {
+            classes = new ClassDecl[count];
+            ForkJoinPool.commonPool().invoke(new ParseClasses(0, count));
+            ClassDeclList cdl = new ClassDeclList();
+            for (ClassDecl cd : classes) {
+                if (cd == null) {
+                    cdl = null;
+                    break;
+                }
+                cdl.add(cd);
+            }
+            if (cdl != null) {
+                // the package is on the line of its first token, the class keyword of the first class
+                return new Package(cdl, new SourcePosition(classes[0].posn.getLineNumber()));
+            }
+        }
+        Scanner scanner = new Scanner(new ByteBufferCharSource(buffer.duplicate()), reporter, referenceScanner, names);
+        Parser parser = new Parser(scanner, reporter);
+        parser.setRecursiveExpressions(recursiveExpressions);
+        parser.setCompactAst(compactAst);
+        return parser.parse();
+    }
+
+    // split the input into top level brace blocks, each one expected to be a class declaration
+    // returns false if the input does not split cleanly
+    private boolean findClasses() {
+        ByteBuffer buffer = this.buffer;
+        int limit = buffer.limit();
+        int line = 1;
+        int depth = 0;
+        int start = -1;
+        int startLine = 0;
+        int i = buffer.position();
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                line++;
+                i++;
+                continue;
+            }
+            if (b == ' ' || b == '\t' || b == '\r') {
+                i++;
+                continue;
+            }
+            if (b == '/' && i + 1 < limit && buffer.get(i + 1) == '*') {
+                // the star of the opening /* cannot also close the comment
+                int j = i + 2;
+                while (j + 1 < limit && (buffer.get(j) != '*' || buffer.get(j + 1) != '/')) {
+                    if (buffer.get(j) == '\n') {
+                        line++;
+                    }
+                    j++;
+                }
+                if (j + 1 >= limit) {
+                    return false;
+                }
+                i = j + 2;
+                continue;
+            }
+            if (b == '/' && i + 1 < limit && buffer.get(i + 1) == '/') {
+                int j = i + 2;
+                while (j < limit && buffer.get(j) != '\n' && buffer.get(j) != '\r') {
+                    j++;
+                }
+                if (j >= limit) {
+                    return false;
+                }
+                i = j;
+                continue;
+            }
+            if (start < 0) {
+                start = i;
+                startLine = line;
+            }
+            if (b == '{') {
+                depth++;
+            } else if (b == '}') {
+                depth--;
+                if (depth < 0) {
+                    return false;
+                }
+                if (depth == 0) {
+                    add(start, i + 1, startLine);
+                    start = -1;
+                }
+            }
+            i++;
+        }
+        return depth == 0 && start < 0;
+    }
+
+    private void add(int start, int end, int line) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            lines = Arrays.copyOf(lines, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        lines[count] = line;
+        count++;
+    }
+
+    // scan and parse class i on its own, leaves null in its place if it has any error
+    private void parseClass(int i) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(starts[i]);
+        slice.limit(ends[i]);
+        DeferredErrorReporter errors = new DeferredErrorReporter();
+        Scanner scanner = new Scanner(new ByteBufferCharSource(slice), errors, referenceScanner, names, lines[i]);
+        Parser parser = new Parser(scanner, errors);
+        parser.setRecursiveExpressions(recursiveExpressions);
+        parser.setCompactAst(compactAst);
+        ClassDecl cd = parser.parseClass();
+        classes[i] = errors.hasErrors() ? null : cd;
+    }
+
+    // parses the classes from low up to high, splitting the range in half until one class is left
+    private class ParseClasses extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int low;
+        private int high;
+
+        ParseClasses(int low, int high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low == 1) {
+                parseClass(low);
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            invokeAll(new ParseClasses(low, mid), new ParseClasses(mid, high));
+        }
+    }
+}
@@ -1,21 +1,94 @@
 package miniJava.SyntacticAnalyzer;
 
+import java.util.Arrays;
+
 import miniJava.AbstractSyntaxTrees.*;
 import miniJava.AbstractSyntaxTrees.Package;
 import miniJava.ErrorReporter;
 
 public class Parser {
 
-    private Scanner scanner;
+    private TokenCursor cursor;
     private ErrorReporter reporter;
-    private Token token;
     private boolean trace = false;
 
+    // share one position between every node on the same line instead of giving each node its own
+    private boolean compactAst = false;
+    private SourcePosition[] positions = new SourcePosition[0];
+
+    // parse expressions with the chain of one method per precedence level instead of the operator stack
+    private boolean recursiveExpressions = false;
+
+    // operator precedence parsing state, shared by nested expressions which each work above their own base
+    // operands are kept with the position of their first token, operators with their own position
+    private Expression[] operands = new Expression[16];
+    private SourcePosition[] operandPositions = new SourcePosition[16];
+    private int operandCount = 0;
+    private Token[] operators = new Token[16];
+    private SourcePosition[] operatorPositions = new SourcePosition[16];
+    private int operatorCount = 0;
+
+    // binding strength of each binary operator by TokenKind ordinal, 0 for tokens that are not binary operators
+    private static final int[] PRECEDENCE = new int[Token.TokenKind.values().length];
+    static {
+        PRECEDENCE[Token.TokenKind.OR.ordinal()] = 1;
+        PRECEDENCE[Token.TokenKind.AND.ordinal()] = 2;
+        PRECEDENCE[Token.TokenKind.EQUALS.ordinal()] = 3;
+        PRECEDENCE[Token.TokenKind.NOTEQUAL.ordinal()] = 3;
+        PRECEDENCE[Token.TokenKind.LESSEQUAL.ordinal()] = 4;
+        PRECEDENCE[Token.TokenKind.LESS.ordinal()] = 4;
+        PRECEDENCE[Token.TokenKind.GREATER.ordinal()] = 4;
+        PRECEDENCE[Token.TokenKind.GREATEREQUAL.ordinal()] = 4;
+        PRECEDENCE[Token.TokenKind.PLUS.ordinal()] = 5;
+        PRECEDENCE[Token.TokenKind.MINUS.ordinal()] = 5;
+        PRECEDENCE[Token.TokenKind.MULT.ordinal()] = 6;
+        PRECEDENCE[Token.TokenKind.DIV.ordinal()] = 6;
+    }
+
     public Parser(Scanner scanner, ErrorReporter reporter) {
-        this.scanner = scanner;
+        this(new ScannerCursor(scanner), reporter);
+    }
+
+    public Parser(TokenCursor cursor, ErrorReporter reporter) {
+        this.cursor = cursor;
         this.reporter = reporter;
     }
 
+    public void setRecursiveExpressions(boolean recursiveExpressions) {
+        this.recursiveExpressions = recursiveExpressions;
+    }
+
+    public void setCompactAst(boolean compactAst) {
+        this.compactAst = compactAst;
+    }
+
+    // position of a node starting at the given token, the token's own position unless compact mode
+    // shares one position per line, so outside compact mode no line is looked up while parsing
+    private SourcePosition position(SourcePosition posn) {
+        if (!compactAst) {
+            return posn;
+        }
+        int line = posn.getLineNumber();
+        if (line >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(line + 1, positions.length * 2));
+        }
+        SourcePosition shared = positions[line];
+        if (shared == null) {
+            shared = new SourcePosition(line);
+            positions[line] = shared;
+        }
+        return shared;
+    }
+
+    // current token for building a terminal, whose position is shared with its line in compact mode
+    private Token currentToken() {
+        Token token = cursor.token();
+        if (compactAst) {
+            token.sourcePosition = position(token.sourcePosition);
+        }
+        return token;
+    }
+
     // SyntaxError is used to unwind parse stack when parse fails
     class SyntaxError extends Error {
         private static final long serialVersionUID = 1L;
@@ -23,7 +96,7 @@ public class Parser {
 
     // parse input while catching any possible errors
     public Package parse() {
-        token = scanner.scan();
+        cursor.advance();
         try {
             return parseProgram();
         }
@@ -32,26 +105,41 @@ public class Parser {
         }
     }
 
+    // parse input that holds exactly one class declaration, returns null if it fails
+    // used by ParallelParser to parse the classes of a program separately
+    ClassDecl parseClass() {
+        cursor.advance();
+        try {
+            ClassDecl cd = parseClassDeclaration();
+            accept(Token.TokenKind.EOT);
+            return cd;
+        }
+        catch (SyntaxError e) {
+            return null;
+        }
+    }
+
     // Program ::= (ClassDeclaration)* eot
     private Package parseProgram() throws SyntaxError {
-        int packageLineNum = scanner.getLineNumber();
+        SourcePosition packagePosn = cursor.position();
         ClassDeclList cdl = new ClassDeclList();
-        while (token.kind != Token.TokenKind.EOT) {
+        while (cursor.kind() != Token.TokenKind.EOT) {
             ClassDecl cd = parseClassDeclaration();
             cdl.add(cd);
         }
         accept(Token.TokenKind.EOT);
-        return new Package(cdl, new SourcePosition(packageLineNum));
+        return new Package(cdl, position(packagePosn));
     }
 
     // ClassDeclaration ::= class id { ( FieldDeclaration | MethodDeclaration )* }
     private ClassDecl parseClassDeclaration() throws SyntaxError {
-        int classLineNum = scanner.getLineNumber();
+        SourcePosition classPosn = cursor.position();
 
         accept(Token.TokenKind.CLASS);
 
         // create classname variable to hold name info
-        Token classname = new Token(Token.TokenKind.ID, token.spelling, token.sourcePosition);
+        String className = cursor.spelling();
+        int classNameId = cursor.nameId();
 
         accept(Token.TokenKind.ID);
         accept(Token.TokenKind.OPENCURLY);
@@ -60,71 +148,74 @@ public class Parser {
         FieldDeclList fdl = new FieldDeclList();
         MethodDeclList mdl = new MethodDeclList();
 
-        while (token.kind != Token.TokenKind.EOT && token.kind != Token.TokenKind.CLOSECURLY) {
+        while (cursor.kind() != Token.TokenKind.EOT && cursor.kind() != Token.TokenKind.CLOSECURLY) {
             // FieldDeclaration ::= Visibility Access Type id ;
             // MethodDeclaration ::= Visibility Access ( Type | void ) id ( ParameterList? ) {Statement*}
-            int memberLineNum = scanner.getLineNumber();
+            SourcePosition memberPosn = cursor.position();
 
             boolean isPrivate = parseVisibility();
             boolean isStatic = parseAccess();
             TypeDenoter typeDenoter;
             String memberName;
+            int memberNameId;
             ParameterDeclList pdl = new ParameterDeclList();
             StatementList stl = new StatementList();
 
-            if (token.kind == Token.TokenKind.VOID) {
-                typeDenoter = new BaseType(TypeKind.VOID, new SourcePosition(memberLineNum));
-                accept(token.kind);
-                memberName = token.spelling;
+            if (cursor.kind() == Token.TokenKind.VOID) {
+                typeDenoter = new BaseType(TypeKind.VOID, position(memberPosn));
+                accept(cursor.kind());
+                memberName = cursor.spelling();
+                memberNameId = cursor.nameId();
                 accept(Token.TokenKind.ID);
                 accept(Token.TokenKind.OPENPAREN);
-                if (token.kind != Token.TokenKind.CLOSEPAREN) {
+                if (cursor.kind() != Token.TokenKind.CLOSEPAREN) {
                     pdl = parseParameterList();
                 }
                 accept(Token.TokenKind.CLOSEPAREN);
                 accept(Token.TokenKind.OPENCURLY);
-                while (token.kind != Token.TokenKind.EOT && token.kind != Token.TokenKind.CLOSECURLY) {
+                while (cursor.kind() != Token.TokenKind.EOT && cursor.kind() != Token.TokenKind.CLOSECURLY) {
                     Statement stmtInList = parseStatement();
                     stl.add(stmtInList);
                 }
                 accept(Token.TokenKind.CLOSECURLY);
-                mdl.add(new MethodDecl(new FieldDecl(isPrivate, isStatic, typeDenoter, memberName, new SourcePosition(memberLineNum)), pdl, stl, new SourcePosition(memberLineNum)));
+                mdl.add(new MethodDecl(new FieldDecl(isPrivate, isStatic, typeDenoter, memberName, memberNameId, position(memberPosn)), pdl, stl, position(memberPosn)));
             } else {
                 typeDenoter = parseType();
-                memberName = token.spelling;
+                memberName = cursor.spelling();
+                memberNameId = cursor.nameId();
                 accept(Token.TokenKind.ID);
-                if (token.kind == Token.TokenKind.SEMICOLON) {
-                    accept(token.kind);
-                    fdl.add(new FieldDecl(isPrivate, isStatic, typeDenoter, memberName, new SourcePosition(memberLineNum)));
+                if (cursor.kind() == Token.TokenKind.SEMICOLON) {
+                    accept(cursor.kind());
+                    fdl.add(new FieldDecl(isPrivate, isStatic, typeDenoter, memberName, memberNameId, position(memberPosn)));
                 } else {
                     accept(Token.TokenKind.OPENPAREN);
-                    if (token.kind != Token.TokenKind.CLOSEPAREN) {
+                    if (cursor.kind() != Token.TokenKind.CLOSEPAREN) {
                         pdl = parseParameterList();
                     }
                     accept(Token.TokenKind.CLOSEPAREN);
                     accept(Token.TokenKind.OPENCURLY);
-                    while (token.kind != Token.TokenKind.EOT && token.kind != Token.TokenKind.CLOSECURLY) {
+                    while (cursor.kind() != Token.TokenKind.EOT && cursor.kind() != Token.TokenKind.CLOSECURLY) {
                         Statement stmtInList = parseStatement();
                         stl.add(stmtInList);
                     }
                     accept(Token.TokenKind.CLOSECURLY);
-                    mdl.add(new MethodDecl(new FieldDecl(isPrivate, isStatic, typeDenoter, memberName, new SourcePosition(memberLineNum)), pdl, stl, new SourcePosition(memberLineNum)));
+                    mdl.add(new MethodDecl(new FieldDecl(isPrivate, isStatic, typeDenoter, memberName, memberNameId, position(memberPosn)), pdl, stl, position(memberPosn)));
                 }
             }
         }
         accept(Token.TokenKind.CLOSECURLY);
-        return new ClassDecl(classname.spelling, fdl, mdl, new SourcePosition(classLineNum));
+        return new ClassDecl(className, classNameId, fdl, mdl, position(classPosn));
     }
 
     // Visibility ::= ( public | private )?
     // returns true if private
     private boolean parseVisibility() throws SyntaxError {
-        if (token.kind == Token.TokenKind.PRIVATE) {
-            accept(token.kind);
+        if (cursor.kind() == Token.TokenKind.PRIVATE) {
+            accept(cursor.kind());
             return true;
         }
-        if (token.kind == Token.TokenKind.PUBLIC) {
-            accept(token.kind);
+        if (cursor.kind() == Token.TokenKind.PUBLIC) {
+            accept(cursor.kind());
         }
         return false;
     }
@@ -132,8 +223,8 @@ public class Parser {
     // Access ::= static ?
     // returns true if static
     private boolean parseAccess() throws SyntaxError {
-        if (token.kind == Token.TokenKind.STATIC) {
-            accept(token.kind);
+        if (cursor.kind() == Token.TokenKind.STATIC) {
+            accept(cursor.kind());
             return true;
         }
         return false;
@@ -141,58 +232,60 @@ public class Parser {
 
     // Type ::= int | boolean | id | ( int | id ) []
     private TypeDenoter parseType() throws SyntaxError {
-        int typeLineNum = scanner.getLineNumber();
-        switch (token.kind) {
+        SourcePosition typePosn = cursor.position();
+        switch (cursor.kind()) {
             case INT:
             case ID:
-                if (token.kind == Token.TokenKind.INT) {
+                if (cursor.kind() == Token.TokenKind.INT) {
                     TypeKind typeKind = TypeKind.INT;
-                    accept(token.kind);
-                    if (token.kind == Token.TokenKind.OPENBRACKET) {
+                    accept(cursor.kind());
+                    if (cursor.kind() == Token.TokenKind.OPENBRACKET) {
                         accept(Token.TokenKind.OPENBRACKET);
                         accept(Token.TokenKind.CLOSEBRACKET);
-                        return new ArrayType(new BaseType(typeKind, new SourcePosition(typeLineNum)), new SourcePosition(typeLineNum));
+                        return new ArrayType(new BaseType(typeKind, position(typePosn)), position(typePosn));
                     } else {
-                        return new BaseType(typeKind, new SourcePosition(typeLineNum));
+                        return new BaseType(typeKind, position(typePosn));
                     }
-                } else if (token.kind == Token.TokenKind.ID) {
-                    Token idToken = token;
-                    accept(token.kind);
-                    if (token.kind == Token.TokenKind.OPENBRACKET) {
+                } else if (cursor.kind() == Token.TokenKind.ID) {
+                    Token idToken = currentToken();
+                    accept(cursor.kind());
+                    if (cursor.kind() == Token.TokenKind.OPENBRACKET) {
                         accept(Token.TokenKind.OPENBRACKET);
                         accept(Token.TokenKind.CLOSEBRACKET);
-                        return new ArrayType(new ClassType(new Identifier(idToken), new SourcePosition(typeLineNum)), new SourcePosition(typeLineNum));
+                        return new ArrayType(new ClassType(new Identifier(idToken), position(typePosn)), position(typePosn));
                     } else {
-                        return new ClassType(new Identifier(idToken), new SourcePosition(typeLineNum));
+                        return new ClassType(new Identifier(idToken), position(typePosn));
                     }
                 }
             case BOOLEAN:
-                accept(token.kind);
-                return new BaseType(TypeKind.BOOLEAN, new SourcePosition(typeLineNum));
+                accept(cursor.kind());
+                return new BaseType(TypeKind.BOOLEAN, position(typePosn));
             case VOID:
-                accept(token.kind);
-                return new BaseType(TypeKind.VOID, new SourcePosition(typeLineNum));
+                accept(cursor.kind());
+                return new BaseType(TypeKind.VOID, position(typePosn));
             default:
                 parseError("invalid type");
-                return new BaseType(TypeKind.ERROR, new SourcePosition(typeLineNum));
+                return new BaseType(TypeKind.ERROR, position(typePosn));
         }
     }
 
     // ParameterList ::= Type id ( , Type id )*
     private ParameterDeclList parseParameterList() throws SyntaxError {
-        int parameterLineNum = scanner.getLineNumber();
+        SourcePosition parameterPosn = cursor.position();
         ParameterDeclList pdl = new ParameterDeclList();
         TypeDenoter typeDenoter = parseType();
-        String paramName = token.spelling;
+        String paramName = cursor.spelling();
+        int paramNameId = cursor.nameId();
         accept(Token.TokenKind.ID);
-        pdl.add(new ParameterDecl(typeDenoter, paramName, new SourcePosition(parameterLineNum)));
-        while (token.kind == Token.TokenKind.COMMA) {
+        pdl.add(new ParameterDecl(typeDenoter, paramName, paramNameId, position(parameterPosn)));
+        while (cursor.kind() == Token.TokenKind.COMMA) {
             accept(Token.TokenKind.COMMA);
-            parameterLineNum = scanner.getLineNumber();
+            parameterPosn = cursor.position();
             typeDenoter = parseType();
-            paramName = token.spelling;
+            paramName = cursor.spelling();
+            paramNameId = cursor.nameId();
             accept(Token.TokenKind.ID);
-            pdl.add(new ParameterDecl(typeDenoter, paramName, new SourcePosition(parameterLineNum)));
+            pdl.add(new ParameterDecl(typeDenoter, paramName, paramNameId, position(parameterPosn)));
         }
         return pdl;
     }
@@ -202,7 +295,7 @@ public class Parser {
         ExprList exprList = new ExprList();
         Expression expression = parseExpression();
         exprList.add(expression);
-        while (token.kind == Token.TokenKind.COMMA) {
+        while (cursor.kind() == Token.TokenKind.COMMA) {
             accept(Token.TokenKind.COMMA);
             expression = parseExpression();
             exprList.add(expression);
@@ -212,32 +305,32 @@ public class Parser {
 
     // Reference ::= id | this | Reference . id
     private Reference parseReference() throws SyntaxError {
-        int refLineNum = scanner.getLineNumber();
+        SourcePosition refPosn = cursor.position();
         QualRef qualRef;
         BaseRef baseRef = null;
-        switch (token.kind) {
+        switch (cursor.kind()) {
             case ID:
-                Identifier identifier = new Identifier(token);
-                baseRef = new IdRef(identifier, new SourcePosition(refLineNum));
-                accept(token.kind);
+                Identifier identifier = new Identifier(currentToken());
+                baseRef = new IdRef(identifier, position(refPosn));
+                accept(cursor.kind());
                 break;
             case THIS:
-                baseRef = new ThisRef(new SourcePosition(refLineNum));
-                accept(token.kind);
+                baseRef = new ThisRef(position(refPosn));
+                accept(cursor.kind());
                 break;
             default:
                 parseError("invalid reference");
         }
-        if (token.kind == Token.TokenKind.DOT) {
+        if (cursor.kind() == Token.TokenKind.DOT) {
             accept(Token.TokenKind.DOT);
-            qualRef = new QualRef(baseRef, new Identifier(token), new SourcePosition(refLineNum));
+            qualRef = new QualRef(baseRef, new Identifier(currentToken()), position(refPosn));
             accept(Token.TokenKind.ID);
         } else {
             return baseRef;
         }
-        while(token.kind == Token.TokenKind.DOT) {
+        while(cursor.kind() == Token.TokenKind.DOT) {
             accept(Token.TokenKind.DOT);
-            qualRef = new QualRef(qualRef, new Identifier(token), new SourcePosition(refLineNum));
+            qualRef = new QualRef(qualRef, new Identifier(currentToken()), position(refPosn));
             accept(Token.TokenKind.ID);
         }
         return qualRef;
@@ -254,108 +347,111 @@ public class Parser {
         | while ( Expression ) Statement
     */
     private Statement parseStatement() throws SyntaxError {
-        int stmtLineNum = scanner.getLineNumber();
+        SourcePosition stmtPosn = cursor.position();
         Expression expr = null;
         Expression expr1 = null;
         Statement stmt = null;
         Statement stmt1 = null;
         TypeDenoter typeDenoter = null;
         String idName = null;
+        int idNameId = -1;
         Reference reference = null;
         ExprList exprList = new ExprList();
         BaseRef baseRef = null;
         QualRef qualRef = null;
-        switch (token.kind) {
+        switch (cursor.kind()) {
             case RETURN:
-                accept(token.kind);
-                if (token.kind != Token.TokenKind.SEMICOLON) {
+                accept(cursor.kind());
+                if (cursor.kind() != Token.TokenKind.SEMICOLON) {
                     expr = parseExpression();
                     accept(Token.TokenKind.SEMICOLON);
-                    return new ReturnStmt(expr, new SourcePosition(stmtLineNum));
+                    return new ReturnStmt(expr, position(stmtPosn));
                 }
                 accept(Token.TokenKind.SEMICOLON);
-                return new ReturnStmt(null, new SourcePosition(stmtLineNum));
+                return new ReturnStmt(null, position(stmtPosn));
             case IF:
-                accept(token.kind);
+                accept(cursor.kind());
                 accept(Token.TokenKind.OPENPAREN);
                 expr = parseExpression();
                 accept(Token.TokenKind.CLOSEPAREN);
                 stmt = parseStatement();
-                if (token.kind == Token.TokenKind.ELSE) {
-                    accept(token.kind);
+                if (cursor.kind() == Token.TokenKind.ELSE) {
+                    accept(cursor.kind());
                     stmt1 = parseStatement();
-                    return new IfStmt(expr, stmt, stmt1, new SourcePosition(stmtLineNum));
+                    return new IfStmt(expr, stmt, stmt1, position(stmtPosn));
                 }
-                return new IfStmt(expr, stmt, new SourcePosition(stmtLineNum));
+                return new IfStmt(expr, stmt, position(stmtPosn));
             case WHILE:
-                accept(token.kind);
+                accept(cursor.kind());
                 accept(Token.TokenKind.OPENPAREN);
                 expr = parseExpression();
                 accept(Token.TokenKind.CLOSEPAREN);
                 stmt = parseStatement();
-                return new WhileStmt(expr, stmt, new SourcePosition(stmtLineNum));
+                return new WhileStmt(expr, stmt, position(stmtPosn));
             case OPENCURLY:
-                accept(token.kind);
+                accept(cursor.kind());
                 StatementList stl = new StatementList();
-                while (token.kind != Token.TokenKind.EOT && token.kind != Token.TokenKind.CLOSECURLY) {
+                while (cursor.kind() != Token.TokenKind.EOT && cursor.kind() != Token.TokenKind.CLOSECURLY) {
                     stl.add(parseStatement());
                 }
                 accept(Token.TokenKind.CLOSECURLY);
-                return new BlockStmt(stl, new SourcePosition(stmtLineNum));
+                return new BlockStmt(stl, position(stmtPosn));
 
                 // we know the next nonterminal is Type
             case BOOLEAN:
             case INT:
                 typeDenoter = parseType();
-                idName = token.spelling;
+                idName = cursor.spelling();
+                idNameId = cursor.nameId();
                 accept(Token.TokenKind.ID);
                 accept(Token.TokenKind.ASSIGNMENT);
                 expr = parseExpression();
                 accept(Token.TokenKind.SEMICOLON);
-                return new VarDeclStmt(new VarDecl(typeDenoter, idName, new SourcePosition(stmtLineNum)), expr, new SourcePosition(stmtLineNum));
+                return new VarDeclStmt(new VarDecl(typeDenoter, idName, idNameId, position(stmtPosn)), expr, position(stmtPosn));
 
                 // we know the next nonterminal is Reference
             case THIS:
                 reference = parseReference();
-                switch (token.kind) {
+                switch (cursor.kind()) {
                     case ASSIGNMENT:
-                        accept(token.kind);
+                        accept(cursor.kind());
                         expr = parseExpression();
                         accept(Token.TokenKind.SEMICOLON);
-                        return new AssignStmt(reference, expr, new SourcePosition(stmtLineNum));
+                        return new AssignStmt(reference, expr, position(stmtPosn));
                     case OPENBRACKET:
-                        accept(token.kind);
+                        accept(cursor.kind());
                         expr = parseExpression();
                         accept(Token.TokenKind.CLOSEBRACKET);
                         accept(Token.TokenKind.ASSIGNMENT);
                         expr1 = parseExpression();
                         accept(Token.TokenKind.SEMICOLON);
-                        return new IxAssignStmt(reference, expr, expr1, new SourcePosition(stmtLineNum));
+                        return new IxAssignStmt(reference, expr, expr1, position(stmtPosn));
                     case OPENPAREN:
-                        accept(token.kind);
-                        if (token.kind != Token.TokenKind.CLOSEPAREN) {
+                        accept(cursor.kind());
+                        if (cursor.kind() != Token.TokenKind.CLOSEPAREN) {
                             exprList = parseArgumentList();
                         }
                         accept(Token.TokenKind.CLOSEPAREN);
                         accept(Token.TokenKind.SEMICOLON);
-                        return new CallStmt(reference, exprList, new SourcePosition(stmtLineNum));
+                        return new CallStmt(reference, exprList, position(stmtPosn));
                     default:
                         parseError("expected one of the following: " +
                                 "'=', '[', '(' after reference (this) within statement," +
-                                " but found '" + token.kind + "'");
+                                " but found '" + cursor.kind() + "'");
                 }
             case ID: // check rest of code
-                typeDenoter = new ClassType(new Identifier(token), new SourcePosition(stmtLineNum));
-                idName = token.spelling;
-                accept(token.kind);
-                switch(token.kind) {
+                typeDenoter = new ClassType(new Identifier(currentToken()), position(stmtPosn));
+                idName = cursor.spelling();
+                idNameId = cursor.nameId();
+                accept(cursor.kind());
+                switch(cursor.kind()) {
                     case OPENBRACKET:
-                        accept(token.kind);
-                        if (token.kind == Token.TokenKind.CLOSEBRACKET) {
+                        accept(cursor.kind());
+                        if (cursor.kind() == Token.TokenKind.CLOSEBRACKET) {
                             // we know it is Type id = Expression ; where type = id[], we are moving through the brackets
                             // so we can use the logic in the below case id
-                            accept(token.kind);
-                            typeDenoter = new ArrayType(typeDenoter, new SourcePosition(stmtLineNum));
+                            accept(cursor.kind());
+                            typeDenoter = new ArrayType(typeDenoter, position(stmtPosn));
                         } else {
                             // we know it is Reference [ Expression ] = Expression ;
                             expr = parseExpression();
@@ -363,61 +459,62 @@ public class Parser {
                             accept(Token.TokenKind.ASSIGNMENT);
                             expr1 = parseExpression();
                             accept(Token.TokenKind.SEMICOLON);
-                            return new IxAssignStmt(new IdRef(new Identifier(new Token(Token.TokenKind.ID, idName, new SourcePosition(stmtLineNum))), new SourcePosition(stmtLineNum)),
-                                    expr, expr1, new SourcePosition(stmtLineNum));
+                            return new IxAssignStmt(new IdRef(new Identifier(new Token(Token.TokenKind.ID, idName, idNameId, position(stmtPosn))), position(stmtPosn)),
+                                    expr, expr1, position(stmtPosn));
                         }
                     case ID:
                         // we know it is Type ID = Expression ;
-                        idName = token.spelling;
+                        idName = cursor.spelling();
+                        idNameId = cursor.nameId();
                         accept(Token.TokenKind.ID);
                         accept(Token.TokenKind.ASSIGNMENT);
                          expr = parseExpression();
                         accept(Token.TokenKind.SEMICOLON);
-                        return new VarDeclStmt(new VarDecl(typeDenoter, idName, new SourcePosition(stmtLineNum)), expr, new SourcePosition(stmtLineNum));
+                        return new VarDeclStmt(new VarDecl(typeDenoter, idName, idNameId, position(stmtPosn)), expr, position(stmtPosn));
                     case DOT:
                         // we know it is one of the three references
-                        Identifier identifier = new Identifier(new Token(Token.TokenKind.ID, idName, new SourcePosition(stmtLineNum)));
-                        baseRef = new IdRef(identifier, new SourcePosition(stmtLineNum));
+                        Identifier identifier = new Identifier(new Token(Token.TokenKind.ID, idName, idNameId, position(stmtPosn)));
+                        baseRef = new IdRef(identifier, position(stmtPosn));
                         accept(Token.TokenKind.DOT);
-                        qualRef = new QualRef(baseRef, new Identifier(token), new SourcePosition(stmtLineNum));
+                        qualRef = new QualRef(baseRef, new Identifier(currentToken()), position(stmtPosn));
                         accept(Token.TokenKind.ID);
 
-                        while(token.kind == Token.TokenKind.DOT) {
+                        while(cursor.kind() == Token.TokenKind.DOT) {
                             accept(Token.TokenKind.DOT);
-                            qualRef = new QualRef(qualRef, new Identifier(token), new SourcePosition(stmtLineNum));
+                            qualRef = new QualRef(qualRef, new Identifier(currentToken()), position(stmtPosn));
                             accept(Token.TokenKind.ID);
                         }
                         reference = qualRef;
                     default:
                         if (qualRef == null) {
-                            reference = new IdRef(new Identifier(new Token(Token.TokenKind.ID, idName, new SourcePosition(stmtLineNum))), new SourcePosition(stmtLineNum));
+                            reference = new IdRef(new Identifier(new Token(Token.TokenKind.ID, idName, idNameId, position(stmtPosn))), position(stmtPosn));
                         }
-                        switch (token.kind) {
+                        switch (cursor.kind()) {
                             case ASSIGNMENT:
-                                accept(token.kind);
+                                accept(cursor.kind());
                                     expr = parseExpression();
                                 accept(Token.TokenKind.SEMICOLON);
-                                return new AssignStmt(reference, expr, new SourcePosition(stmtLineNum));
+                                return new AssignStmt(reference, expr, position(stmtPosn));
                             case OPENBRACKET:
-                                accept(token.kind);
+                                accept(cursor.kind());
                                 expr = parseExpression();
                                 accept(Token.TokenKind.CLOSEBRACKET);
                                 accept(Token.TokenKind.ASSIGNMENT);
                                 expr1 = parseExpression();
                                 accept(Token.TokenKind.SEMICOLON);
-                                return new IxAssignStmt(reference, expr, expr1, new SourcePosition(stmtLineNum));
+                                return new IxAssignStmt(reference, expr, expr1, position(stmtPosn));
                             case OPENPAREN:
-                                accept(token.kind);
-                                if (token.kind != Token.TokenKind.CLOSEPAREN) {
+                                accept(cursor.kind());
+                                if (cursor.kind() != Token.TokenKind.CLOSEPAREN) {
                                     exprList = parseArgumentList();
                                 }
                                 accept(Token.TokenKind.CLOSEPAREN);
                                 accept(Token.TokenKind.SEMICOLON);
-                                return new CallStmt(reference, exprList, new SourcePosition(stmtLineNum));
+                                return new CallStmt(reference, exprList, position(stmtPosn));
                             default:
                                 parseError("expected one of the following: " +
                                         "'=', '[', '(' after reference within statement," +
-                                        " but found '" + token.kind + "'");
+                                        " but found '" + cursor.kind() + "'");
                                 return null;
                         }
 
@@ -450,86 +547,167 @@ public class Parser {
      */
 
     private Expression parseExpression() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        if (recursiveExpressions) {
+            return parseDisjunctionExpr();
+        }
+        return parseOperatorExpr();
+    }
+
+    // precedence climbing over an explicit operator stack, builds the same tree as the recursive chain
+    // operators of equal precedence group to the left, and a binary expression is on the line
+    // its left operand starts on, as each level of the chain records the line it was entered at
+    private Expression parseOperatorExpr() throws SyntaxError {
+        int operandBase = operandCount;
+        int operatorBase = operatorCount;
+        pushOperand(cursor.position(), parseUnaryOperand());
+        int precedence;
+        while ((precedence = PRECEDENCE[cursor.kind().ordinal()]) > 0) {
+            while (operatorCount > operatorBase && PRECEDENCE[operators[operatorCount - 1].kind.ordinal()] >= precedence) {
+                reduce();
+            }
+            pushOperator(cursor.position(), currentToken());
+            accept(cursor.kind());
+            pushOperand(cursor.position(), parseUnaryOperand());
+        }
+        while (operatorCount > operatorBase) {
+            reduce();
+        }
+        Expression expr = operands[operandBase];
+        operands[operandBase] = null;
+        operandPositions[operandBase] = null;
+        operandCount = operandBase;
+        return expr;
+    }
+
+    // combine the top two operands with the top operator
+    private void reduce() {
+        Token oper = operators[--operatorCount];
+        operators[operatorCount] = null;
+        operatorPositions[operatorCount] = null;
+        Expression right = operands[--operandCount];
+        operands[operandCount] = null;
+        SourcePosition posn = operandPositions[operandCount - 1];
+        operandPositions[operandCount] = null;
+        operands[operandCount - 1] = new BinaryExpr(new Operator(oper), operands[operandCount - 1], right, position(posn));
+    }
+
+    // prefix operators bind tighter than any binary operator, they are applied innermost first
+    private Expression parseUnaryOperand() throws SyntaxError {
+        int operatorBase = operatorCount;
+        while (cursor.kind() == Token.TokenKind.MINUS || cursor.kind() == Token.TokenKind.NOT) {
+            pushOperator(cursor.position(), currentToken());
+            accept(cursor.kind());
+        }
+        Expression expr = parseBaseExpression();
+        while (operatorCount > operatorBase) {
+            Token oper = operators[--operatorCount];
+            operators[operatorCount] = null;
+            SourcePosition posn = operatorPositions[operatorCount];
+            operatorPositions[operatorCount] = null;
+            expr = new UnaryExpr(new Operator(oper), expr, position(posn));
+        }
+        return expr;
+    }
+
+    private void pushOperand(SourcePosition posn, Expression expr) {
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, operandCount * 2);
+            operandPositions = Arrays.copyOf(operandPositions, operandCount * 2);
+        }
+        operandPositions[operandCount] = posn;
+        operands[operandCount++] = expr;
+    }
+
+    private void pushOperator(SourcePosition posn, Token oper) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+            operatorPositions = Arrays.copyOf(operatorPositions, operatorCount * 2);
+        }
+        operatorPositions[operatorCount] = posn;
+        operators[operatorCount++] = oper;
+    }
+
+    private Expression parseDisjunctionExpr() throws SyntaxError {
+        SourcePosition exprPosn = cursor.position();
 
         Expression expr = parseConjunctionExpr();
-        while(token.kind == Token.TokenKind.OR) {
-            Token oper = token;
+        while(cursor.kind() == Token.TokenKind.OR) {
+            Token oper = currentToken();
             accept(Token.TokenKind.OR);
             Expression expr1 = parseConjunctionExpr();
-            expr = new BinaryExpr(new Operator(oper), expr, expr1, new SourcePosition(exprLineNum));
+            expr = new BinaryExpr(new Operator(oper), expr, expr1, position(exprPosn));
         }
         return expr;
     }
     private Expression parseConjunctionExpr() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        SourcePosition exprPosn = cursor.position();
 
         Expression expr = parseEqualityExpr();
-        while(token.kind == Token.TokenKind.AND) {
-            Token oper = token;
-            accept(token.kind);
+        while(cursor.kind() == Token.TokenKind.AND) {
+            Token oper = currentToken();
+            accept(cursor.kind());
             Expression expr1 = parseEqualityExpr();
-            expr = new BinaryExpr(new Operator(oper), expr, expr1, new SourcePosition(exprLineNum));
+            expr = new BinaryExpr(new Operator(oper), expr, expr1, position(exprPosn));
         }
         return expr;
     }
     private Expression parseEqualityExpr() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        SourcePosition exprPosn = cursor.position();
 
         Expression expr = parseRelationalExpr();
-        while(token.kind == Token.TokenKind.EQUALS || token.kind == Token.TokenKind.NOTEQUAL) {
-            Token oper = token;
-            accept(token.kind);
+        while(cursor.kind() == Token.TokenKind.EQUALS || cursor.kind() == Token.TokenKind.NOTEQUAL) {
+            Token oper = currentToken();
+            accept(cursor.kind());
             Expression expr1 = parseRelationalExpr();
-            expr = new BinaryExpr(new Operator(oper), expr, expr1, new SourcePosition(exprLineNum));
+            expr = new BinaryExpr(new Operator(oper), expr, expr1, position(exprPosn));
         }
         return expr;
     }
     private Expression parseRelationalExpr() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        SourcePosition exprPosn = cursor.position();
 
         Expression expr = parseAdditiveExpr();
-        while(token.kind == Token.TokenKind.LESSEQUAL || token.kind == Token.TokenKind.LESS ||
-                token.kind == Token.TokenKind.GREATER || token.kind == Token.TokenKind.GREATEREQUAL) {
-            Token oper = token;
-            accept(token.kind);
+        while(cursor.kind() == Token.TokenKind.LESSEQUAL || cursor.kind() == Token.TokenKind.LESS ||
+                cursor.kind() == Token.TokenKind.GREATER || cursor.kind() == Token.TokenKind.GREATEREQUAL) {
+            Token oper = currentToken();
+            accept(cursor.kind());
             Expression expr1 = parseAdditiveExpr();
-            expr = new BinaryExpr(new Operator(oper), expr, expr1, new SourcePosition(exprLineNum));
+            expr = new BinaryExpr(new Operator(oper), expr, expr1, position(exprPosn));
         }
         return expr;
     }
     private Expression parseAdditiveExpr() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        SourcePosition exprPosn = cursor.position();
 
         Expression expr = parseMultiplicativeExpr();
-        while(token.kind == Token.TokenKind.PLUS || token.kind == Token.TokenKind.MINUS) {
-            Token oper = token;
-            accept(token.kind);
+        while(cursor.kind() == Token.TokenKind.PLUS || cursor.kind() == Token.TokenKind.MINUS) {
+            Token oper = currentToken();
+            accept(cursor.kind());
             Expression expr1 = parseMultiplicativeExpr();
-            expr = new BinaryExpr(new Operator(oper), expr, expr1, new SourcePosition(exprLineNum));
+            expr = new BinaryExpr(new Operator(oper), expr, expr1, position(exprPosn));
         }
         return expr;
     }
     private Expression parseMultiplicativeExpr() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        SourcePosition exprPosn = cursor.position();
 
         Expression expr = parseUnaryExpr();
-        while(token.kind == Token.TokenKind.MULT || token.kind == Token.TokenKind.DIV) {
-            Token oper = token;
-            accept(token.kind);
+        while(cursor.kind() == Token.TokenKind.MULT || cursor.kind() == Token.TokenKind.DIV) {
+            Token oper = currentToken();
+            accept(cursor.kind());
             Expression expr1 = parseUnaryExpr();
-            expr = new BinaryExpr(new Operator(oper), expr, expr1, new SourcePosition(exprLineNum));
+            expr = new BinaryExpr(new Operator(oper), expr, expr1, position(exprPosn));
         }
         return expr;
     }
     private Expression parseUnaryExpr() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        SourcePosition exprPosn = cursor.position();
 
         Expression expr;
-        if (token.kind == Token.TokenKind.MINUS || token.kind == Token.TokenKind.NOT) {
-            Token oper = token;
-            accept(token.kind);
-            return new UnaryExpr(new Operator(oper), parseUnaryExpr(), new SourcePosition(exprLineNum));
+        if (cursor.kind() == Token.TokenKind.MINUS || cursor.kind() == Token.TokenKind.NOT) {
+            Token oper = currentToken();
+            accept(cursor.kind());
+            return new UnaryExpr(new Operator(oper), parseUnaryExpr(), position(exprPosn));
         } else {
             return parseBaseExpression();
         }
@@ -547,74 +725,74 @@ public class Parser {
  */
 
     private Expression parseBaseExpression() throws SyntaxError {
-        int exprLineNum = scanner.getLineNumber();
+        SourcePosition exprPosn = cursor.position();
 
         Token literalToken;
         Expression expr;
-        switch (token.kind) {
+        switch (cursor.kind()) {
             case NULL:
-                literalToken = token;
-                accept(token.kind);
-                return new LiteralExpr(new NullLiteral(literalToken), new SourcePosition(exprLineNum));
+                literalToken = currentToken();
+                accept(cursor.kind());
+                return new LiteralExpr(new NullLiteral(literalToken), position(exprPosn));
             case NUM:
-                literalToken = token;
-                accept(token.kind);
-                return new LiteralExpr(new IntLiteral(literalToken), new SourcePosition(exprLineNum));
+                literalToken = currentToken();
+                accept(cursor.kind());
+                return new LiteralExpr(new IntLiteral(literalToken), position(exprPosn));
             case TRUE:
             case FALSE:
-                literalToken = token;
-                accept(token.kind);
-                return new LiteralExpr(new BooleanLiteral(literalToken), new SourcePosition(exprLineNum));
+                literalToken = currentToken();
+                accept(cursor.kind());
+                return new LiteralExpr(new BooleanLiteral(literalToken), position(exprPosn));
             case NEW:
-                accept(token.kind);
-                switch(token.kind) {
+                accept(cursor.kind());
+                switch(cursor.kind()) {
                     case ID:
-                        Token idToken = token;
-                        accept(token.kind);
-                        if (token.kind == Token.TokenKind.OPENPAREN) {
-                            accept(token.kind);
+                        Token idToken = currentToken();
+                        accept(cursor.kind());
+                        if (cursor.kind() == Token.TokenKind.OPENPAREN) {
+                            accept(cursor.kind());
                             accept(Token.TokenKind.CLOSEPAREN);
-                            return new NewObjectExpr(new ClassType(new Identifier(idToken), new SourcePosition(exprLineNum)), new SourcePosition(exprLineNum));
-                        } else if (token.kind == Token.TokenKind.OPENBRACKET) {
-                            accept(token.kind);
+                            return new NewObjectExpr(new ClassType(new Identifier(idToken), position(exprPosn)), position(exprPosn));
+                        } else if (cursor.kind() == Token.TokenKind.OPENBRACKET) {
+                            accept(cursor.kind());
                             expr = parseExpression();
                             accept(Token.TokenKind.CLOSEBRACKET);
-                            return new NewArrayExpr(new ClassType(new Identifier(idToken), new SourcePosition(exprLineNum)), expr, new SourcePosition(exprLineNum));
+                            return new NewArrayExpr(new ClassType(new Identifier(idToken), position(exprPosn)), expr, position(exprPosn));
                         } else {
                             parseError("invalid token after new id");
                         }
                     case INT:
-                        accept(token.kind);
+                        accept(cursor.kind());
                         accept(Token.TokenKind.OPENBRACKET);
                         expr = parseExpression();
                         accept(Token.TokenKind.CLOSEBRACKET);
-                        return new NewArrayExpr(new BaseType(TypeKind.INT, new SourcePosition(exprLineNum)), expr, new SourcePosition(exprLineNum));
+                        return new NewArrayExpr(new BaseType(TypeKind.INT, position(exprPosn)), expr, position(exprPosn));
                     default:
                         parseError("invalid token after new");
                 }
             case OPENPAREN:
-                accept(token.kind);
+                accept(cursor.kind());
                 expr = parseExpression();
                 accept(Token.TokenKind.CLOSEPAREN);
                 return expr;
             case ID:
             case THIS:
                 Reference ref = parseReference();
-                if (token.kind == Token.TokenKind.OPENBRACKET) {
-                    accept(token.kind);
+                if (cursor.kind() == Token.TokenKind.OPENBRACKET) {
+                    accept(cursor.kind());
                     expr = parseExpression();
                     accept(Token.TokenKind.CLOSEBRACKET);
-                    return new IxExpr(ref, expr, new SourcePosition(exprLineNum));
-                } else if (token.kind == Token.TokenKind.OPENPAREN) {
-                    accept(token.kind);
+                    return new IxExpr(ref, expr, position(exprPosn));
+                } else if (cursor.kind() == Token.TokenKind.OPENPAREN) {
+                    accept(cursor.kind());
                     ExprList exprList = new ExprList();
-                    if (token.kind != Token.TokenKind.CLOSEPAREN) {
+                    if (cursor.kind() != Token.TokenKind.CLOSEPAREN) {
                         exprList = parseArgumentList();
                     }
                     accept(Token.TokenKind.CLOSEPAREN);
-                    return new CallExpr(ref, exprList, new SourcePosition(exprLineNum));
+                    return new CallExpr(ref, exprList, position(exprPosn));
                 }
-                return new RefExpr(ref, new SourcePosition(exprLineNum));
+                return new RefExpr(ref, position(exprPosn));
             default:
                 parseError("invalid expression");
                 return null;
@@ -627,14 +805,14 @@ public class Parser {
      * throws SyntaxError if match fails
      */
     private void accept(Token.TokenKind expectedTokenKind) throws SyntaxError {
-        if (token.kind == expectedTokenKind) {
+        if (cursor.kind() == expectedTokenKind) {
             if (trace)
                 pTrace();
-            token = scanner.scan();
+            cursor.advance();
         }
         else
             parseError("expecting '" + expectedTokenKind +
-                    "' but found '" + token.kind + "'");
+                    "' but found '" + cursor.kind() + "'");
     }
 
     // show parse stack whenever terminal is accepted
@@ -644,7 +822,7 @@ public class Parser {
             if(stl[i].toString().contains("parse"))
                 System.out.println(stl[i]);
         }
-        System.out.println("accepting: " + token.kind + " (\"" + token.spelling + "\")");
+        System.out.println("accepting: " + cursor.kind() + " (\"" + cursor.spelling() + "\")");
         System.out.println();
     }
 
@@ -1,28 +1,99 @@
 package miniJava.SyntacticAnalyzer;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import miniJava.ErrorReporter;
+import miniJava.NameTable;
 
 public class Scanner {
 
     public InputStream inputStream;
+    private CharSource source;
     private ErrorReporter reporter;
 
     private char currentChar;
-    private StringBuilder currentSpelling;
+    private char[] currentSpelling;
+    private int spellingLength;
+    private SpellingTable spellings;
     private boolean eot = false;
     private int lineNumber;
 
+    // set when the input is a ByteBuffer: characters are read from it by offset,
+    // whitespace and comments are skipped by searching it directly,
+    // and line numbers come from the LineIndex instead of being counted
+    private ByteBuffer buffer;
+    private int limit;
+    private LineIndex lines;
+
+    // offset of currentChar in the input
+    private int position;
+    private int tokenStart;
+    private int tokenLength;
+    private String fixedSpelling;
+
+    // true to scan with the hand written reference scanner instead of the tables
+    private boolean reference;
+
+    // compatibility path for callers that already hold an open stream
     public Scanner(InputStream inputStream, ErrorReporter reporter) {
+        this(new StreamCharSource(inputStream), reporter);
         this.inputStream = inputStream;
+    }
+
+    public Scanner(CharSource source, ErrorReporter reporter) {
+        this(source, reporter, false);
+    }
+
+    // a scanner given no NameTable is a compilation of its own
+    public Scanner(CharSource source, ErrorReporter reporter, boolean reference) {
+        this(source, reporter, reference, new NameTable());
+    }
+
+    // names is the table of the compilation, identifiers are given their ids from it
+    public Scanner(CharSource source, ErrorReporter reporter, boolean reference, NameTable names) {
+        this(source, reporter, reference, names, 1);
+    }
+
+    // firstLine is the line the input starts on, for scanning part of a larger file
+    public Scanner(CharSource source, ErrorReporter reporter, boolean reference, NameTable names, int firstLine) {
+        this.source = source;
         this.reporter = reporter;
-        lineNumber = 1;
+        this.reference = reference;
+        lineNumber = firstLine;
+        position = -1;
+        if (source instanceof ByteBufferCharSource) {
+            buffer = ((ByteBufferCharSource) source).getBuffer();
+            position = buffer.position() - 1;
+            limit = buffer.limit();
+            lines = new LineIndex(buffer, firstLine);
+        }
+        currentSpelling = new char[64];
+        spellings = new SpellingTable(names);
         // initialize scanner state
         readChar();
     }
 
     // scan next token ignoring whitespace and comments
     public Token scan() {
+        Token.TokenKind kind = next();
+        SourcePosition posn = lines != null ? new SourcePosition(lines, position) : new SourcePosition(lineNumber);
+        if (kind == Token.TokenKind.ID) {
+            int slot = spellings.find(currentSpelling, spellingLength);
+            return new Token(kind, spellings.spelling(slot), spellings.nameId(slot), posn);
+        }
+        return new Token(kind, getSpelling(kind), posn);
+    }
+
+    // scan next token without building a Token for it
+    // the token's extent in the input is left in getTokenStart() and getTokenLength()
+    public Token.TokenKind next() {
+        fixedSpelling = null;
+        if (buffer != null) {
+            Token.TokenKind kind = skipBuffered();
+            if (kind != null) {
+                return kind;
+            }
+        }
         // skip whitespace and comments
         while (!eot && (isWhiteSpace(currentChar) || currentChar == '/')) {
             if (isWhiteSpace(currentChar)) {
@@ -34,6 +105,7 @@ public class Scanner {
             }
 
             // skip the first slash /
+            tokenStart = position;
             skipIt();
 
             // skip /* ... */
@@ -53,7 +125,7 @@ public class Scanner {
                 }
                 if (eot) {
                     scanError("Unterminated * comment in input");
-                    return(new Token(Token.TokenKind.ERROR, "Unterminated * comment in input", new SourcePosition(lineNumber)));
+                    return errorToken("Unterminated * comment in input");
                 }
                 skipIt();
                 // skip //
@@ -63,26 +135,162 @@ public class Scanner {
                 }
                 if (eot) {
                     scanError("Unterminated single line comment in input");
-                    return(new Token(Token.TokenKind.ERROR, "Unterminated single line comment in input", new SourcePosition(lineNumber)));
+                    return errorToken("Unterminated single line comment in input");
                 }
                 if (currentChar == '\n') {
                     lineNumber++;
                 }
                 skipIt();
             } else {
-                return(new Token(Token.TokenKind.DIV, "/", new SourcePosition(lineNumber)));
+                tokenLength = 1;
+                return Token.TokenKind.DIV;
             }
         }
 
         // start of a token: collect spelling and identify token kind
-        currentSpelling = new StringBuilder();
-        Token.TokenKind kind = scanToken();
-        String spelling = currentSpelling.toString();
+        spellingLength = 0;
+        tokenStart = position;
+        Token.TokenKind kind = reference ? scanToken() : scanTokenTable();
+        tokenLength = position - tokenStart;
+        return kind;
+    }
 
-        // return new token
-        return new Token(kind, spelling, new SourcePosition(lineNumber));
+    // skip whitespace and comments by searching the buffer for their ends
+    // returns DIV or a comment ERROR token if one is found instead of the start of a token, null otherwise
+    private Token.TokenKind skipBuffered() {
+        ByteBuffer buffer = this.buffer;
+        int limit = this.limit;
+        int i = position;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                i++;
+                continue;
+            }
+            if (b != '/') {
+                break;
+            }
+            tokenStart = i;
+            if (i + 1 < limit && buffer.get(i + 1) == '*') {
+                // the star of the opening /* cannot also close the comment
+                int j = i + 2;
+                while (j + 1 < limit && (buffer.get(j) != '*' || buffer.get(j + 1) != '/')) {
+                    j++;
+                }
+                if (j + 1 >= limit) {
+                    seek(limit);
+                    scanError("Unterminated * comment in input");
+                    return errorToken("Unterminated * comment in input");
+                }
+                i = j + 2;
+            } else if (i + 1 < limit && buffer.get(i + 1) == '/') {
+                int j = i + 2;
+                while (j < limit && buffer.get(j) != '\n' && buffer.get(j) != '\r') {
+                    j++;
+                }
+                if (j >= limit) {
+                    seek(limit);
+                    scanError("Unterminated single line comment in input");
+                    return errorToken("Unterminated single line comment in input");
+                }
+                i = j + 1;
+            } else {
+                seek(i + 1);
+                tokenLength = 1;
+                return Token.TokenKind.DIV;
+            }
+        }
+        seek(i);
+        return null;
+    }
+
+    // move to the given offset in the buffer
+    private void seek(int offset) {
+        position = offset;
+        if (offset < limit) {
+            currentChar = (char) (buffer.get(offset) & 0xff);
+        } else {
+            currentChar = (char) -1;
+            eot = true;
+        }
     }
 
+    // spelling of the token last returned by next()
+    public String getSpelling(Token.TokenKind kind) {
+        if (fixedSpelling != null) {
+            return fixedSpelling;
+        }
+        switch (kind) {
+            case ID:
+            case NUM:
+                return spellings.intern(currentSpelling, spellingLength);
+            case EOT:
+                return "";
+            case ERROR:
+                return new String(currentSpelling, 0, spellingLength);
+            default:
+                return kind.spelling;
+        }
+    }
+
+    // a comment error token spans from the start of the comment to the end of the input
+    private Token.TokenKind errorToken(String message) {
+        fixedSpelling = message;
+        tokenLength = position - tokenStart;
+        return Token.TokenKind.ERROR;
+    }
+
+    // offset in the input of the first character of the last token
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    public int getTokenLength() {
+        return tokenLength;
+    }
+
+    // message carried by a comment error token, null for every other token
+    public String getErrorSpelling() {
+        return fixedSpelling;
+    }
+
+    // table driven scan of one token, runs the DFA in ScannerTables for as long as it has a transition
+    public Token.TokenKind scanTokenTable() {
+        if (eot) {
+            return (Token.TokenKind.EOT);
+        }
+        int[] transitions = ScannerTables.transitions;
+        byte[] charClass = ScannerTables.charClass;
+        int classCount = ScannerTables.classCount;
+        int state = ScannerTables.START;
+        while (true) {
+            // the end of input marker is outside the table and so ends the token
+            char c = currentChar;
+            int next = c < 256 ? transitions[state * classCount + charClass[c]] : ScannerTables.NONE;
+            if (next == ScannerTables.NONE) {
+                break;
+            }
+            state = next;
+            takeIt();
+        }
+        Token.TokenKind kind = ScannerTables.accepting[state];
+        if (kind == Token.TokenKind.ID) {
+            return Keywords.classify(currentSpelling, spellingLength);
+        }
+        if (kind == null) {
+            if (state == ScannerTables.START) {
+                // take the character, so that scanning on to the end of the input gets past it
+                scanError("Unrecognized character '" + currentChar + "' in input");
+                takeIt();
+            } else {
+                scanError(ScannerTables.errors[state]);
+            }
+            return Token.TokenKind.ERROR;
+        }
+        return kind;
+    }
+
+    // hand written reference scanner, kept to check the tables against
     public Token.TokenKind scanToken() {
         if (eot) {
             return (Token.TokenKind.EOT);
@@ -189,44 +397,10 @@ public class Scanner {
                     while (!eot && (isLetter(currentChar) || isDigit(currentChar) || currentChar == '_')) {
                         takeIt();
                     }
-                    switch (currentSpelling.toString()) {
-                        case "class":
-                            return Token.TokenKind.CLASS;
-                        case "void":
-                            return Token.TokenKind.VOID;
-                        case "public":
-                            return Token.TokenKind.PUBLIC;
-                        case "private":
-                            return Token.TokenKind.PRIVATE;
-                        case "static":
-                            return Token.TokenKind.STATIC;
-                        case "int":
-                            return Token.TokenKind.INT;
-                        case "boolean":
-                            return Token.TokenKind.BOOLEAN;
-                        case "this":
-                            return Token.TokenKind.THIS;
-                        case "return":
-                            return Token.TokenKind.RETURN;
-                        case "if":
-                            return Token.TokenKind.IF;
-                        case "else":
-                            return Token.TokenKind.ELSE;
-                        case "while":
-                            return Token.TokenKind.WHILE;
-                        case "true":
-                            return Token.TokenKind.TRUE;
-                        case "false":
-                            return Token.TokenKind.FALSE;
-                        case "new":
-                            return Token.TokenKind.NEW;
-                        case "null":
-                            return Token.TokenKind.NULL;
-                        default:
-                            return Token.TokenKind.ID;
-                    }
+                    return Keywords.classify(currentSpelling, spellingLength);
                 }
                 scanError("Unrecognized character '" + currentChar + "' in input");
+                takeIt();
                 return(Token.TokenKind.ERROR);
         }
     }
@@ -242,7 +416,12 @@ public class Scanner {
     }
 
     private void takeIt() {
-        currentSpelling.append(currentChar);
+        if (spellingLength == currentSpelling.length) {
+            char[] larger = new char[currentSpelling.length * 2];
+            System.arraycopy(currentSpelling, 0, larger, 0, spellingLength);
+            currentSpelling = larger;
+        }
+        currentSpelling[spellingLength++] = currentChar;
         nextChar();
     }
 
@@ -257,8 +436,13 @@ public class Scanner {
     }
 
     private void readChar() {
+        if (buffer != null) {
+            seek(position + 1);
+            return;
+        }
         try {
-            int c = inputStream.read();
+            int c = source.read();
+            position++;
             currentChar = (char) c;
             if (c == -1) {
                 eot = true;
@@ -273,7 +457,16 @@ public class Scanner {
         reporter.reportError("Scan Error:  " + message);
     }
 
+    // line of the last token scanned
     public int getLineNumber() {
+        if (lines != null) {
+            return lines.lineOf(position);
+        }
         return lineNumber;
     }
+
+    // line index of a ByteBuffer input, null when reading from a stream
+    public LineIndex getLineIndex() {
+        return lines;
+    }
 }
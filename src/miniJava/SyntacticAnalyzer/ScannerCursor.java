@@ -0,0 +1,47 @@
+package miniJava.SyntacticAnalyzer;
+
+// pulls tokens from a Scanner one at a time as the Parser accepts them
+public class ScannerCursor implements TokenCursor {
+
+    private Scanner scanner;
+    private Token token;
+
+    public ScannerCursor(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public Token.TokenKind kind() {
+        return token.kind;
+    }
+
+    @Override
+    public String spelling() {
+        return token.spelling;
+    }
+
+    @Override
+    public int nameId() {
+        return token.nameId;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return scanner.getLineNumber();
+    }
+
+    @Override
+    public SourcePosition position() {
+        return token.sourcePosition;
+    }
+
+    @Override
+    public Token token() {
+        return token;
+    }
+
+    @Override
+    public void advance() {
+        token = scanner.scan();
+    }
+}
@@ -0,0 +1,118 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// lookup tables for the table driven scanner, built once from the spellings in Token.TokenKind
+// every operator and separator spelling becomes a path in the DFA, ID and NUM are added as loops
+// keywords are scanned as ID and told apart afterwards by Keywords
+public class ScannerTables {
+
+    // character classes: one per operator or separator character, plus the classes below
+    public static final int OTHER = 0;
+    public static final int LETTER = 1;
+    public static final int DIGIT = 2;
+    public static final int UNDERSCORE = 3;
+
+    public static final int START = 0;
+    public static final int NONE = -1;
+
+    public static final byte[] charClass = new byte[256];
+    public static final int classCount;
+
+    // next state for (state, class) at transitions[state * classCount + class], NONE when the token ends
+    public static final int[] transitions;
+    // kind accepted by each state, null if the state is not accepting
+    public static final Token.TokenKind[] accepting;
+    // error reported when a token ends in a non accepting state
+    public static final String[] errors;
+
+    // operators whose prefixes are not tokens themselves, and what to report when only the prefix is found
+    private static final String[][] incompleteOperators = {
+            {"&", "Single ampersand in input"},
+            {"|", "Single or bar in input"},
+    };
+
+    static {
+        // character classes
+        int classes = 4;
+        for (char c = 'a'; c <= 'z'; c++) {
+            charClass[c] = LETTER;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            charClass[c] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            charClass[c] = DIGIT;
+        }
+        charClass['_'] = UNDERSCORE;
+        for (Token.TokenKind kind : Token.TokenKind.values()) {
+            if (kind.spelling != null && !kind.isKeyword()) {
+                for (char c : kind.spelling.toCharArray()) {
+                    if (charClass[c] == OTHER) {
+                        charClass[c] = (byte) classes++;
+                    }
+                }
+            }
+        }
+        classCount = classes;
+
+        // states, built as a trie over the operator spellings
+        ArrayList<int[]> rows = new ArrayList<int[]>();
+        ArrayList<Token.TokenKind> accepts = new ArrayList<Token.TokenKind>();
+        rows.add(newRow());
+        accepts.add(null);
+        for (Token.TokenKind kind : Token.TokenKind.values()) {
+            if (kind.spelling != null && !kind.isKeyword()) {
+                int state = START;
+                for (char c : kind.spelling.toCharArray()) {
+                    int[] row = rows.get(state);
+                    if (row[charClass[c]] == NONE) {
+                        row[charClass[c]] = rows.size();
+                        rows.add(newRow());
+                        accepts.add(null);
+                    }
+                    state = row[charClass[c]];
+                }
+                accepts.set(state, kind);
+            }
+        }
+
+        // ID ::= letter (letter | digit | _)*
+        int id = rows.size();
+        rows.add(newRow());
+        accepts.add(Token.TokenKind.ID);
+        rows.get(START)[LETTER] = id;
+        rows.get(id)[LETTER] = id;
+        rows.get(id)[DIGIT] = id;
+        rows.get(id)[UNDERSCORE] = id;
+
+        // NUM ::= digit digit*
+        int num = rows.size();
+        rows.add(newRow());
+        accepts.add(Token.TokenKind.NUM);
+        rows.get(START)[DIGIT] = num;
+        rows.get(num)[DIGIT] = num;
+
+        transitions = new int[rows.size() * classCount];
+        for (int state = 0; state < rows.size(); state++) {
+            System.arraycopy(rows.get(state), 0, transitions, state * classCount, classCount);
+        }
+        accepting = accepts.toArray(new Token.TokenKind[0]);
+
+        errors = new String[rows.size()];
+        for (String[] incomplete : incompleteOperators) {
+            int state = START;
+            for (char c : incomplete[0].toCharArray()) {
+                state = transitions[state * classCount + charClass[c]];
+            }
+            errors[state] = incomplete[1];
+        }
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[classCount];
+        Arrays.fill(row, NONE);
+        return row;
+    }
+}
@@ -3,11 +3,25 @@ package miniJava.SyntacticAnalyzer;
 public class SourcePosition {
     private int lineNumber;
 
+    // set for positions whose line is only looked up when first asked for
+    private volatile LineIndex lines;
+    private int offset;
+
     public SourcePosition (int i) {
         lineNumber = i;
     }
 
+    public SourcePosition (LineIndex lines, int offset) {
+        this.lines = lines;
+        this.offset = offset;
+    }
+
     public int getLineNumber() {
+        LineIndex lines = this.lines;
+        if (lines != null) {
+            lineNumber = lines.lineOf(offset);
+            this.lines = null;
+        }
         return lineNumber;
     }
 }
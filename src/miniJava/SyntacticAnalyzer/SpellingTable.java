@@ -0,0 +1,108 @@
+package miniJava.SyntacticAnalyzer;
+
+import miniJava.NameTable;
+
+// interns identifier and number spellings straight from the scanner's character buffer
+// a String is only created, and a NameTable id only looked up, the first time a spelling is seen
+public class SpellingTable {
+
+    private String[] entries;
+    private int[] hashes;
+    private int[] nameIds;
+    private int count;
+    private NameTable names;
+
+    public SpellingTable(NameTable names) {
+        this.names = names;
+        entries = new String[1024];
+        hashes = new int[1024];
+        nameIds = new int[1024];
+        count = 0;
+    }
+
+    // returns the slot holding the spelling of chars[0 .. length-1]
+    public int find(char[] chars, int length) {
+        int hash = hash(chars, length);
+        int mask = entries.length - 1;
+        int i = hash & mask;
+        while (entries[i] != null) {
+            if (hashes[i] == hash && matches(entries[i], chars, length)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        entries[i] = new String(chars, 0, length);
+        hashes[i] = hash;
+        nameIds[i] = -1;
+        count++;
+        // keep the table at most half full
+        if (count * 2 > entries.length) {
+            grow();
+            return find(chars, length);
+        }
+        return i;
+    }
+
+    public String intern(char[] chars, int length) {
+        // find may grow the table, so entries must only be read after it returns
+        int slot = find(chars, length);
+        return entries[slot];
+    }
+
+    public String spelling(int slot) {
+        return entries[slot];
+    }
+
+    // NameTable id of the spelling in the given slot
+    public int nameId(int slot) {
+        if (nameIds[slot] < 0) {
+            nameIds[slot] = names.id(entries[slot]);
+        }
+        return nameIds[slot];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private static int hash(char[] chars, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String spelling, char[] chars, int length) {
+        if (spelling.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (spelling.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        String[] oldEntries = entries;
+        int[] oldHashes = hashes;
+        int[] oldNameIds = nameIds;
+        entries = new String[oldEntries.length * 2];
+        hashes = new int[oldEntries.length * 2];
+        nameIds = new int[oldEntries.length * 2];
+        int mask = entries.length - 1;
+        for (int j = 0; j < oldEntries.length; j++) {
+            if (oldEntries[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (entries[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                entries[i] = oldEntries[j];
+                hashes[i] = oldHashes[j];
+                nameIds[i] = oldNameIds[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// reads an InputStream in large blocks so the Scanner does not pay for one read call per character
+public class StreamCharSource implements CharSource {
+
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private InputStream inputStream;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    public StreamCharSource(InputStream inputStream) {
+        this.inputStream = inputStream;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit) {
+            // refill the same buffer, read may return fewer bytes than requested
+            int count = inputStream.read(buffer, 0, buffer.length);
+            while (count == 0) {
+                count = inputStream.read(buffer, 0, buffer.length);
+            }
+            if (count < 0) {
+                return -1;
+            }
+            position = 0;
+            limit = count;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
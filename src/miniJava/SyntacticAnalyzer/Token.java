@@ -3,11 +3,19 @@ package miniJava.SyntacticAnalyzer;
 public class Token {
     public TokenKind kind;
     public String spelling;
+    // id of an ID token's spelling in the NameTable of its compilation, -1 for every other kind
+    public int nameId;
     public SourcePosition sourcePosition;
 
+    // for tokens of any kind but ID, which are built with their name id
     public Token (TokenKind kind, String spelling, SourcePosition posn) {
+        this(kind, spelling, -1, posn);
+    }
+
+    public Token (TokenKind kind, String spelling, int nameId, SourcePosition posn) {
         this.kind = kind;
         this.spelling = spelling;
+        this.nameId = nameId;
         this.sourcePosition = posn;
     }
 
@@ -15,53 +23,64 @@ public class Token {
         return this.sourcePosition;
     }
 
+    // fixed-spelling kinds carry their spelling, kinds whose text varies carry null
     public enum TokenKind {
-        EOT,
-        CLASS,
-        ID,
-        VOID,
-        PUBLIC,
-        PRIVATE,
-        STATIC,
-        INT,
-        BOOLEAN,
-        THIS,
-        RETURN,
-        IF,
-        ELSE,
-        WHILE,
-        TRUE,
-        FALSE,
-        NEW,
-        NUM,
-        COMMA,
-        DOT,
-        OPENCURLY,
-        CLOSECURLY,
-        OPENPAREN,
-        CLOSEPAREN,
-        OPENBRACKET,
-        CLOSEBRACKET,
-        SEMICOLON,
+        EOT(null),
+        CLASS("class"),
+        ID(null),
+        VOID("void"),
+        PUBLIC("public"),
+        PRIVATE("private"),
+        STATIC("static"),
+        INT("int"),
+        BOOLEAN("boolean"),
+        THIS("this"),
+        RETURN("return"),
+        IF("if"),
+        ELSE("else"),
+        WHILE("while"),
+        TRUE("true"),
+        FALSE("false"),
+        NEW("new"),
+        NUM(null),
+        COMMA(","),
+        DOT("."),
+        OPENCURLY("{"),
+        CLOSECURLY("}"),
+        OPENPAREN("("),
+        CLOSEPAREN(")"),
+        OPENBRACKET("["),
+        CLOSEBRACKET("]"),
+        SEMICOLON(";"),
+
+        ASSIGNMENT("="),
+
+        GREATER(">"),
+        LESS("<"),
+        EQUALS("=="),
+        LESSEQUAL("<="),
+        GREATEREQUAL(">="),
+        NOTEQUAL("!="),
+        AND("&&"),
+        OR("||"),
+        NOT("!"),
+        PLUS("+"),
+        MINUS("-"),
+        MULT("*"),
+        DIV("/"),
+
 
-        ASSIGNMENT,
+        ERROR(null),
+        NULL("null");
 
-        GREATER,
-        LESS,
-        EQUALS,
-        LESSEQUAL,
-        GREATEREQUAL,
-        NOTEQUAL,
-        AND,
-        OR,
-        NOT,
-        PLUS,
-        MINUS,
-        MULT,
-        DIV,
+        public final String spelling;
 
+        TokenKind(String spelling) {
+            this.spelling = spelling;
+        }
 
-        ERROR,
-        NULL;
+        public boolean isKeyword() {
+            return spelling != null && Character.isLetter(spelling.charAt(0));
+        }
     }
 }
@@ -0,0 +1,24 @@
+package miniJava.SyntacticAnalyzer;
+
+// the Parser's view of its input: a current token and a way to move past it
+// a cursor starts before the first token, advance() must be called once before reading
+public interface TokenCursor {
+
+    Token.TokenKind kind();
+
+    String spelling();
+
+    // NameTable id of the current token if it is an ID, -1 otherwise
+    int nameId();
+
+    // line of the current token
+    int getLineNumber();
+
+    // position of the current token, its line may only be looked up when first asked for
+    SourcePosition position();
+
+    // current token as an object, for building AST terminals
+    Token token();
+
+    void advance();
+}
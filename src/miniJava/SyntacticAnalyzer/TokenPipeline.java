@@ -0,0 +1,182 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import miniJava.DeferredErrorReporter;
+import miniJava.ErrorReporter;
+import miniJava.NameTable;
+
+// runs the Scanner on its own thread ahead of the Parser
+// tokens are handed over through a bounded single producer, single consumer ring,
+// scan errors travel with the token they were found in and are reported when the Parser reaches it
+public class TokenPipeline implements TokenCursor {
+
+    private static final int CAPACITY = 1 << 12;
+    private static final int MASK = CAPACITY - 1;
+    private static final int SPINS = 128;
+    private static final int YIELDS = SPINS + 1024;
+    private static final long PARK_NANOS = 50_000;
+
+    private final Token[] tokens = new Token[CAPACITY];
+    private final String[][] errors = new String[CAPACITY][];
+
+    // next slot the Parser reads and next slot the Scanner writes, both only ever grow
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+
+    private Scanner scanner;
+    private ErrorReporter reporter;
+    private DeferredErrorReporter scanErrors;
+    private Thread producer;
+    private Token token;
+
+    // the Scanner must report to the returned pipeline's scan error reporter, see start()
+    private TokenPipeline(ErrorReporter reporter) {
+        this.reporter = reporter;
+        this.scanErrors = new DeferredErrorReporter();
+    }
+
+    // start scanning the source on a new thread, as a compilation of its own
+    public static TokenPipeline start(CharSource source, ErrorReporter reporter, boolean referenceScanner) {
+        return start(source, reporter, referenceScanner, new NameTable());
+    }
+
+    // names is the table of the compilation, the scanner thread gives identifiers their ids from it
+    public static TokenPipeline start(CharSource source, ErrorReporter reporter, boolean referenceScanner, NameTable names) {
+        TokenPipeline pipeline = new TokenPipeline(reporter);
+        pipeline.scanner = new Scanner(source, pipeline.scanErrors, referenceScanner, names);
+        pipeline.producer = new Thread(pipeline::produce, "miniJava scanner");
+        // a Parser that gives up early must not keep the compiler alive
+        pipeline.producer.setDaemon(true);
+        pipeline.producer.start();
+        return pipeline;
+    }
+
+    // stop the Scanner thread, the cursor must not be used afterwards
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void produce() {
+        try {
+            long t = tail.get();
+            long limit = head.get() + CAPACITY;
+            Token.TokenKind kind;
+            do {
+                Token next = scanner.scan();
+                String[] found = null;
+                if (scanErrors.hasErrors()) {
+                    found = new String[scanErrors.size()];
+                    for (int i = 0; i < found.length; i++) {
+                        found[i] = scanErrors.get(i);
+                    }
+                    scanErrors.clear();
+                }
+                // wait for the Parser to free a slot
+                int spins = 0;
+                while (t == limit) {
+                    if (cancelled) {
+                        return;
+                    }
+                    pause(spins++);
+                    limit = head.get() + CAPACITY;
+                }
+                int slot = (int) t & MASK;
+                tokens[slot] = next;
+                errors[slot] = found;
+                tail.lazySet(++t);
+                kind = next.kind;
+            } while (kind != Token.TokenKind.EOT && !cancelled);
+        } catch (Throwable e) {
+            // errors too, such as a StackOverflowError, or the Parser would wait for a token forever
+            failure = e;
+        }
+    }
+
+    @Override
+    public Token.TokenKind kind() {
+        return token.kind;
+    }
+
+    @Override
+    public String spelling() {
+        return token.spelling;
+    }
+
+    @Override
+    public int nameId() {
+        return token.nameId;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return token.sourcePosition.getLineNumber();
+    }
+
+    @Override
+    public SourcePosition position() {
+        return token.sourcePosition;
+    }
+
+    @Override
+    public Token token() {
+        return token;
+    }
+
+    @Override
+    public void advance() {
+        // past the end the cursor stays on EOT, as the Scanner keeps returning EOT
+        if (token != null && token.kind == Token.TokenKind.EOT) {
+            return;
+        }
+        long h = head.get();
+        int spins = 0;
+        while (h == tail.get()) {
+            Throwable thrown = failure;
+            if (thrown != null) {
+                rethrow(thrown);
+            }
+            if (!producer.isAlive() && h == tail.get() && failure == null) {
+                throw new IllegalStateException("scanner thread stopped before the end of the input");
+            }
+            pause(spins++);
+        }
+        int slot = (int) h & MASK;
+        token = tokens[slot];
+        String[] found = errors[slot];
+        tokens[slot] = null;
+        errors[slot] = null;
+        head.lazySet(h + 1);
+        if (found != null) {
+            for (String message : found) {
+                reporter.reportError(message);
+            }
+        }
+    }
+
+    private static void rethrow(Throwable thrown) {
+        if (thrown instanceof RuntimeException) {
+            throw (RuntimeException) thrown;
+        }
+        if (thrown instanceof Error) {
+            throw (Error) thrown;
+        }
+        throw new RuntimeException(thrown);
+    }
+
+    // busy wait for a short while, then give the other thread the processor, and once the wait has
+    // gone on for longer, park between checks so a stalled other side does not keep this thread busy
+    private static void pause(int spins) {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else if (spins < YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
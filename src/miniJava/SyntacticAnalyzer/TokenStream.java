@@ -0,0 +1,245 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import miniJava.DeferredErrorReporter;
+import miniJava.ErrorReporter;
+import miniJava.NameTable;
+
+// the whole input lexed up front into parallel primitive arrays, one entry per token
+// spellings stay in the source buffer and are only decoded when the parser asks for them,
+// line numbers are only computed from the LineIndex when they are asked for
+public class TokenStream {
+
+    private static final Token.TokenKind[] KINDS = Token.TokenKind.values();
+
+    private ByteBuffer buffer;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int count;
+    private LineIndex lines;
+
+    // scan errors are kept with the token they were found in and reported when a cursor reaches it
+    private int[] errorTokens;
+    private String[] errorMessages;
+    private int errorCount;
+
+    // comment error tokens carry their message as spelling
+    private String[] errorSpellings;
+
+    private SpellingTable spellings;
+    private char[] chars;
+
+    private TokenStream(ByteBuffer buffer, NameTable names) {
+        this.buffer = buffer;
+        // roughly one token per four bytes of source
+        int capacity = Math.max(64, buffer.remaining() / 4);
+        kinds = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        count = 0;
+        errorTokens = new int[4];
+        errorMessages = new String[4];
+        errorSpellings = new String[0];
+        errorCount = 0;
+        spellings = new SpellingTable(names);
+        chars = new char[64];
+    }
+
+    // lex the entire buffer, the stream always ends with an EOT token
+    public static TokenStream lex(ByteBuffer buffer) {
+        return lex(buffer, false);
+    }
+
+    // a stream lexed without a NameTable is a compilation of its own
+    public static TokenStream lex(ByteBuffer buffer, boolean referenceScanner) {
+        return lex(buffer, referenceScanner, new NameTable());
+    }
+
+    // names is the table of the compilation, identifiers are given their ids from it
+    public static TokenStream lex(ByteBuffer buffer, boolean referenceScanner, NameTable names) {
+        TokenStream stream = new TokenStream(buffer, names);
+        DeferredErrorReporter scanErrors = new DeferredErrorReporter();
+        Scanner scanner = new Scanner(new ByteBufferCharSource(buffer.duplicate()), scanErrors, referenceScanner, names);
+        Token.TokenKind kind;
+        do {
+            kind = scanner.next();
+            stream.add(kind, scanner.getTokenStart(), scanner.getTokenLength());
+            if (scanErrors.hasErrors()) {
+                for (int i = 0; i < scanErrors.size(); i++) {
+                    stream.addError(scanErrors.get(i));
+                }
+                scanErrors.clear();
+            }
+            if (scanner.getErrorSpelling() != null) {
+                stream.setErrorSpelling(scanner.getErrorSpelling());
+            }
+        } while (kind != Token.TokenKind.EOT);
+        stream.lines = scanner.getLineIndex();
+        return stream;
+    }
+
+    private void add(Token.TokenKind kind, int start, int length) {
+        if (count == kinds.length) {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        kinds[count] = (byte) kind.ordinal();
+        starts[count] = start;
+        lengths[count] = length;
+        count++;
+    }
+
+    private void addError(String message) {
+        if (errorCount == errorTokens.length) {
+            errorTokens = Arrays.copyOf(errorTokens, errorCount * 2);
+            errorMessages = Arrays.copyOf(errorMessages, errorCount * 2);
+        }
+        errorTokens[errorCount] = count - 1;
+        errorMessages[errorCount] = message;
+        errorCount++;
+    }
+
+    private void setErrorSpelling(String spelling) {
+        if (errorSpellings.length < count) {
+            errorSpellings = Arrays.copyOf(errorSpellings, count);
+        }
+        errorSpellings[count - 1] = spelling;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Token.TokenKind kind(int i) {
+        return KINDS[kinds[i]];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    // a token's line is counted at its end, which only differs from its start for comment error tokens
+    public int line(int i) {
+        return lines.lineOf(starts[i] + lengths[i]);
+    }
+
+    // decode the spelling of token i, the same String is returned for every occurrence of an ID or NUM
+    public String spelling(int i) {
+        Token.TokenKind kind = kind(i);
+        if (kind.spelling != null) {
+            return kind.spelling;
+        }
+        if (kind == Token.TokenKind.EOT) {
+            return "";
+        }
+        if (i < errorSpellings.length && errorSpellings[i] != null) {
+            return errorSpellings[i];
+        }
+        int length = decode(i);
+        if (kind == Token.TokenKind.ERROR) {
+            return new String(chars, 0, length);
+        }
+        return spellings.intern(chars, length);
+    }
+
+    // NameTable id of the spelling of token i if it is an ID, -1 otherwise
+    public int nameId(int i) {
+        if (kinds[i] != Token.TokenKind.ID.ordinal()) {
+            return -1;
+        }
+        return spellings.nameId(spellings.find(chars, decode(i)));
+    }
+
+    public Token token(int i) {
+        if (kinds[i] == Token.TokenKind.ID.ordinal()) {
+            int slot = spellings.find(chars, decode(i));
+            return new Token(Token.TokenKind.ID, spellings.spelling(slot), spellings.nameId(slot), position(i));
+        }
+        return new Token(kind(i), spelling(i), position(i));
+    }
+
+    public SourcePosition position(int i) {
+        return new SourcePosition(lines, starts[i] + lengths[i]);
+    }
+
+    // copy the text of token i out of the source buffer into chars, returns its length
+    private int decode(int i) {
+        int length = lengths[i];
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        int start = starts[i];
+        for (int j = 0; j < length; j++) {
+            chars[j] = (char) (buffer.get(start + j) & 0xff);
+        }
+        return length;
+    }
+
+    public TokenCursor cursor(ErrorReporter reporter) {
+        return new Cursor(reporter);
+    }
+
+    // walks the stream for the Parser, replaying scan errors as their tokens are reached
+    private class Cursor implements TokenCursor {
+        private ErrorReporter reporter;
+        private int index;
+        private int nextError;
+
+        Cursor(ErrorReporter reporter) {
+            this.reporter = reporter;
+            this.index = -1;
+            this.nextError = 0;
+        }
+
+        @Override
+        public Token.TokenKind kind() {
+            return KINDS[kinds[index]];
+        }
+
+        @Override
+        public String spelling() {
+            return TokenStream.this.spelling(index);
+        }
+
+        @Override
+        public int nameId() {
+            return TokenStream.this.nameId(index);
+        }
+
+        @Override
+        public int getLineNumber() {
+            return line(index);
+        }
+
+        @Override
+        public SourcePosition position() {
+            return TokenStream.this.position(index);
+        }
+
+        @Override
+        public Token token() {
+            return TokenStream.this.token(index);
+        }
+
+        @Override
+        public void advance() {
+            // past the end the cursor stays on EOT, as the Scanner keeps returning EOT
+            if (index < count - 1) {
+                index++;
+                while (nextError < errorCount && errorTokens[nextError] == index) {
+                    reporter.reportError(errorMessages[nextError]);
+                    nextError++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+// classes, fields, arrays, statics and a recursive call
+class Main {
+    public static void main(String[] args) {
+        int x = 3 * 4 + 1;
+        System.out.println(x);
+        int y = -x + 20 / 2;
+        System.out.println(y);
+        boolean b = x < y && y != 0 || false;
+        if (b) System.out.println(1); else System.out.println(0);
+        if (!b) { System.out.println(11); }
+        int i = 0;
+        while (i < 5) {
+            System.out.println(i);
+            i = i + 1;
+        }
+        /* block
+           comment */
+        int[] a = new int[10];
+        a[3] = 7;
+        System.out.println(a[3] + a.length);
+        A obj = new A();
+        obj.v = 5;
+        obj.next = new A();
+        obj.next.v = 9;
+        System.out.println(obj.v + obj.next.v);
+        count = 42;
+        System.out.println(count);
+        Main.count = Main.count + 1;
+        System.out.println(count);
+        System.out.println(fact(5));
+    }
+    static int count;
+    public static int fact(int n) {
+        int r = 1;
+        if (n > 1) r = n * fact(n - 1);
+        return r;
+    }
+}
+class A {
+    int v;
+    A next;
+    public int get() { return v; }
+    private boolean test(int q, boolean z) { return z && q == v; }
+}
@@ -0,0 +1,31 @@
+class B1 {
+    public static void main(String[] args) {
+        B1 o = null;
+        int i = 0;
+        int n = 0;
+        boolean t = true;
+        boolean f = !t;
+        if (o == null) System.out.println(1); else System.out.println(2);
+        o = new B1();
+        if (o != null) System.out.println(3); else System.out.println(4);
+        if (null == o) System.out.println(5); else System.out.println(6);
+        while (i != 10) { n = n + i; i = i + 1; }
+        System.out.println(n);
+        while (i == 10) i = i + 5;
+        System.out.println(i);
+        if (!(i > 14)) System.out.println(7); else System.out.println(8);
+        if (!f) System.out.println(9);
+        if (!t) System.out.println(10); else System.out.println(11);
+        if (f == false) System.out.println(12);
+        if (t != true) System.out.println(13); else System.out.println(14);
+        if (!(f || !t) && 3 > 2) System.out.println(15);
+        if (!(i == 15) || 0 == i - 15) System.out.println(16);
+        i = 0;
+        while (!(i == 3) && !f) i = i + 1;
+        System.out.println(i);
+        while (!(4 <= i)) i = i + 1;
+        System.out.println(i);
+        boolean g = !(i != 4);
+        if (g) System.out.println(17);
+    }
+}
@@ -0,0 +1,25 @@
+class Main {
+    public static void main(String[] args) {
+        int sum = 0;
+        int i = 0;
+        while (i < 100) {
+            int j = 0;
+            while (j < i) {
+                if (j == 3 || j == 5 && i > 10) sum = sum + j;
+                else {
+                    sum = sum - 1;
+                }
+                j = j + 1;
+            }
+            i = i + 1;
+        }
+        System.out.println(sum);
+        boolean t = true;
+        boolean f = !t;
+        if (!(f || !t)) System.out.println(1);
+        if (3 >= 2 && 2 <= 2 && 1 - 1 == 0) System.out.println(2);
+        int k = 10 - 2 - 3;
+        System.out.println(k);
+        System.out.println(k * 1 + 0);
+    }
+}
@@ -0,0 +1,28 @@
+class S1 {
+    public static void main(String[] args) {
+        int[] a = new int[3];
+        a[0] = 4; a[1] = 0; a[2] = 7;
+        int i = 0;
+        int n = 0;
+        while (i < a.length && a[i] != 0) { n = n + a[i]; i = i + 1; }
+        System.out.println(n);
+        i = 0;
+        while (i < 5 && (i == 4 || 0 < a[i])) { i = i + 1; }
+        System.out.println(i);
+        boolean b = t(1) || t(2);
+        if (b) System.out.println(10);
+        b = f(3) && t(4);
+        if (b == false) System.out.println(11);
+        b = t(5) && (f(6) || t(7));
+        if (b) System.out.println(12);
+        if (f(8) || t(9) && f(10)) System.out.println(13); else System.out.println(14);
+        if (t(11) && t(12) || f(13)) System.out.println(15);
+        i = 0;
+        while (i < 3 || f(20)) i = i + 1;
+        System.out.println(i);
+        boolean c = (i == 3) == (t(30) && t(31));
+        if (c) System.out.println(16);
+    }
+    public static boolean t(int x) { System.out.println(x); return true; }
+    public static boolean f(int x) { System.out.println(x); return false; }
+}
@@ -0,0 +1,164 @@
+package miniJava.CodeGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mJAM.Instruction;
+import mJAM.Machine;
+import miniJava.DeferredErrorReporter;
+import miniJava.AbstractSyntaxTrees.AST;
+import miniJava.ContextualAnalyzer.Identification;
+import miniJava.ContextualAnalyzer.TypeChecking;
+import miniJava.SyntacticAnalyzer.CharSource;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.Scanner;
+
+// round trip tests for miniJava.IR: every sample program in the test directory is compiled by the
+// CodeGenerator and again lowered to the IR and emitted from there with -ir, under each code generator
+// option, and the two code stores must be the same
+// the IR dump of each sample must also match the expected dump kept next to it, as name.ir
+// usage: IRRoundTripTest [-update] [directory], -update rewrites the expected dumps instead
+public class IRRoundTripTest {
+
+    // code generator options each sample is compiled under, in the names the driver gives them
+    private static final String[] OPTIONS = { "", "-shortcircuit", "-fusebranches", "-peephole" };
+
+    private Path work;
+    private boolean update;
+    private int failures = 0;
+
+    IRRoundTripTest(Path work, boolean update) {
+        this.work = work;
+        this.update = update;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean update = false;
+        String directory = "test/ir";
+        for (String arg : args) {
+            if (arg.equals("-update")) {
+                update = true;
+            } else {
+                directory = arg;
+            }
+        }
+
+        File[] samples = new File(directory).listFiles();
+        if (samples == null) {
+            System.out.println("No test directory " + directory);
+            System.exit(2);
+        }
+        Arrays.sort(samples);
+
+        IRRoundTripTest test = new IRRoundTripTest(Files.createTempDirectory("irtest"), update);
+        int count = 0;
+        for (File sample : samples) {
+            if (sample.getName().endsWith(".java")) {
+                test.check(sample.toPath());
+                count++;
+            }
+        }
+        System.out.println(count + " samples, " + test.failures + " failures");
+        System.exit(test.failures == 0 ? 0 : 1);
+    }
+
+    private void check(Path sample) throws IOException {
+        String name = sample.getFileName().toString().replace(".java", "");
+        boolean passed = true;
+        for (String option : OPTIONS) {
+            List<String> direct = compile(sample, option, false);
+            List<String> throughIR = compile(sample, option, true);
+            if (direct == null || throughIR == null) {
+                passed = fail(name, option, "does not compile");
+                continue;
+            }
+            int i = 0;
+            while (i < direct.size() && i < throughIR.size() && direct.get(i).equals(throughIR.get(i))) {
+                i++;
+            }
+            if (i < direct.size() || i < throughIR.size()) {
+                passed = fail(name, option, "code differs at " + i + ": "
+                        + (i < direct.size() ? direct.get(i) : "end") + " without -ir, "
+                        + (i < throughIR.size() ? throughIR.get(i) : "end") + " with -ir");
+            }
+        }
+
+        // only the dump of the plain compile is kept, the options only change what goes into the blocks
+        compile(sample, "", true);
+        Path dump = work.resolve(name + ".ir");
+        Path expected = sample.resolveSibling(name + ".ir");
+        if (update) {
+            Files.copy(dump, expected, StandardCopyOption.REPLACE_EXISTING);
+        } else if (!Files.exists(expected)) {
+            passed = fail(name, "", "no expected dump " + expected);
+        } else {
+            List<String> actualLines = Files.readAllLines(dump);
+            List<String> expectedLines = Files.readAllLines(expected);
+            int i = 0;
+            while (i < actualLines.size() && i < expectedLines.size() && actualLines.get(i).equals(expectedLines.get(i))) {
+                i++;
+            }
+            if (i < actualLines.size() || i < expectedLines.size()) {
+                passed = fail(name, "", "dump differs at line " + (i + 1) + ": "
+                        + (i < actualLines.size() ? actualLines.get(i).trim() : "end") + ", expected "
+                        + (i < expectedLines.size() ? expectedLines.get(i).trim() : "end"));
+            }
+        }
+        if (passed) {
+            System.out.println("ok " + name);
+        }
+    }
+
+    private boolean fail(String name, String option, String message) {
+        System.out.println("FAIL " + name + (option.isEmpty() ? "" : " " + option) + ": " + message);
+        failures++;
+        return false;
+    }
+
+    // compile a copy of the sample in the work directory, so the files written next to it stay out of
+    // the test directory, and return the code store one "op n r d" line per instruction
+    private List<String> compile(Path sample, String option, boolean ir) throws IOException {
+        Path copy = work.resolve(sample.getFileName());
+        Files.copy(sample, copy, StandardCopyOption.REPLACE_EXISTING);
+        String fileName = copy.toString();
+
+        DeferredErrorReporter reporter = new DeferredErrorReporter();
+        Parser parser = new Parser(new Scanner(CharSource.open(fileName), reporter), reporter);
+        AST ast = parser.parse();
+        if (reporter.hasErrors()) {
+            return null;
+        }
+        new Identification(ast, reporter).identify();
+        if (reporter.hasErrors()) {
+            return null;
+        }
+        new TypeChecking(ast, reporter).typeCheck();
+        if (reporter.hasErrors()) {
+            return null;
+        }
+
+        CodeGenerator codeGenerator = new CodeGenerator(ast, reporter);
+        codeGenerator.debug = false;
+        codeGenerator.setShortCircuit(option.equals("-shortcircuit"));
+        codeGenerator.setFuseBranches(option.equals("-fusebranches"));
+        codeGenerator.setPeephole(option.equals("-peephole"));
+        codeGenerator.setIR(ir, ir);
+        codeGenerator.generate(fileName);
+        if (reporter.hasErrors()) {
+            return null;
+        }
+
+        List<String> code = new ArrayList<String>();
+        for (int i = 0; i < Machine.nextInstrAddr(); i++) {
+            Instruction instr = Machine.code[i];
+            code.add(instr.op + " " + instr.n + " " + instr.r + " " + instr.d);
+        }
+        return code;
+    }
+}
@@ -0,0 +1,128 @@
+package miniJava.CodeGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import mJAM.Instruction;
+import mJAM.Machine;
+import mJAM.Machine.Op;
+import mJAM.Machine.Reg;
+import miniJava.DeferredErrorReporter;
+import miniJava.AbstractSyntaxTrees.AST;
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.ContextualAnalyzer.Identification;
+import miniJava.ContextualAnalyzer.TypeChecking;
+import miniJava.SyntacticAnalyzer.CharSource;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.Scanner;
+
+// tests for the PeepholeOptimizer: every sample program in the test directory is compiled with
+// -peephole, alone and through -ir, and every call in the code store must still go to the entry of a
+// method, the first instruction it kept, even where the first instruction it was generated with is gone
+// usage: PeepholeTest [directory]
+public class PeepholeTest {
+
+    private static final int CALL = Op.CALL.ordinal();
+    private static final int CALLI = Op.CALLI.ordinal();
+    private static final int CB = Reg.CB.ordinal();
+
+    private Path work;
+    private int failures = 0;
+
+    PeepholeTest(Path work) {
+        this.work = work;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String directory = args.length > 0 ? args[0] : "test/peephole";
+        File[] samples = new File(directory).listFiles();
+        if (samples == null) {
+            System.out.println("No test directory " + directory);
+            System.exit(2);
+        }
+        Arrays.sort(samples);
+
+        PeepholeTest test = new PeepholeTest(Files.createTempDirectory("peepholetest"));
+        int count = 0;
+        for (File sample : samples) {
+            if (sample.getName().endsWith(".java")) {
+                test.check(sample.toPath());
+                count++;
+            }
+        }
+        System.out.println(count + " samples, " + test.failures + " failures");
+        System.exit(test.failures == 0 ? 0 : 1);
+    }
+
+    private void check(Path sample) throws IOException {
+        String name = sample.getFileName().toString().replace(".java", "");
+        boolean passed = true;
+        for (boolean ir : new boolean[] { false, true }) {
+            String option = ir ? "-peephole -ir" : "-peephole";
+            Package prog = compile(sample, ir);
+            if (prog == null) {
+                passed = fail(name, option, "does not compile");
+                continue;
+            }
+
+            int size = Machine.nextInstrAddr();
+            HashSet<Integer> entries = new HashSet<Integer>();
+            for (ClassDecl cd : prog.classDeclList) {
+                for (MethodDecl md : cd.methodDeclList) {
+                    if (md.rED.displacement < 0 || md.rED.displacement >= size) {
+                        passed = fail(name, option, cd.name + "." + md.name + " starts at " + md.rED.displacement);
+                    }
+                    entries.add(md.rED.displacement);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                Instruction instr = Machine.code[i];
+                if ((instr.op == CALL || instr.op == CALLI) && instr.r == CB && !entries.contains(instr.d)) {
+                    passed = fail(name, option, "call at " + i + " goes to " + instr.d + ", not to a method");
+                }
+            }
+        }
+        if (passed) {
+            System.out.println("ok " + name);
+        }
+    }
+
+    private boolean fail(String name, String option, String message) {
+        System.out.println("FAIL " + name + " " + option + ": " + message);
+        failures++;
+        return false;
+    }
+
+    // compile a copy of the sample in the work directory with -peephole, leaving the code in the code store
+    private Package compile(Path sample, boolean ir) throws IOException {
+        Path copy = work.resolve(sample.getFileName());
+        Files.copy(sample, copy, StandardCopyOption.REPLACE_EXISTING);
+        String fileName = copy.toString();
+
+        DeferredErrorReporter reporter = new DeferredErrorReporter();
+        AST ast = new Parser(new Scanner(CharSource.open(fileName), reporter), reporter).parse();
+        if (!reporter.hasErrors()) {
+            new Identification(ast, reporter).identify();
+        }
+        if (!reporter.hasErrors()) {
+            new TypeChecking(ast, reporter).typeCheck();
+        }
+        if (reporter.hasErrors()) {
+            return null;
+        }
+
+        CodeGenerator codeGenerator = new CodeGenerator(ast, reporter);
+        codeGenerator.debug = false;
+        codeGenerator.setPeephole(true);
+        codeGenerator.setIR(ir, false);
+        codeGenerator.generate(fileName);
+        return reporter.hasErrors() ? null : (Package) ast;
+    }
+}
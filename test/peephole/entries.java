@@ -0,0 +1,33 @@
+class Main {
+    public static void main(String[] args) {
+        System.out.println(negative());
+        System.out.println(spin(3));
+        Main m = new Main();
+        System.out.println(m.count(12));
+        System.out.println(m.both(4));
+    }
+
+    // the first instruction, LOADL 0 of 0 - 4, goes when the negation is folded into LOADL -4
+    public static int negative() {
+        int a = -4;
+        return a * 2;
+    }
+
+    // the first instruction, the jump to the loop condition right after it, goes
+    public static int spin(int x) {
+        while (x > 10) { }
+        return x + 1;
+    }
+
+    public int count(int x) {
+        while (x > 10) { x = x - 1; }
+        return -x;
+    }
+
+    // both at once, and a call from a method whose entry moved
+    public int both(int x) {
+        int b = -1;
+        while (x > 10) { }
+        return spin(x) + b + negative();
+    }
+}
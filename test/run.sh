@@ -0,0 +1,11 @@
+#!/bin/sh
+# build the compiler and the tests and run them from the top of the repository
+# MJAM names the mJAM classes (a directory or a jar) that the compiler is built against
+# extra arguments go to the round trip test, -update rewrites the expected IR dumps
+set -e
+cd "$(dirname "$0")/.."
+: "${MJAM:?set MJAM to the mJAM classes directory or jar}"
+rm -rf build/test && mkdir -p build/test
+javac -nowarn --release 14 -cp "$MJAM" -d build/test $(find src test -name '*.java' ! -path 'test/ir/*' ! -path 'test/peephole/*')
+java -cp "build/test:$MJAM" miniJava.CodeGenerator.IRRoundTripTest "$@" test/ir
+java -cp "build/test:$MJAM" miniJava.CodeGenerator.PeepholeTest test/peephole